@@ -0,0 +1,38 @@
+package jenkins.plugins.foldericon;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.DescriptorExtensionList;
+import hudson.ExtensionPoint;
+import hudson.model.Describable;
+import hudson.model.Descriptor;
+import hudson.model.Result;
+import jenkins.model.Jenkins;
+
+/**
+ * Determines the combined result of the jobs considered by a {@link BuildStatusFolderIcon}.
+ * <p>
+ * A strategy is applied whenever the icon is rendered, so it only gets the counters of the cached {@link BuildStatus}
+ * and must never iterate the jobs themselves.
+ */
+public abstract class AggregationStrategy implements Describable<AggregationStrategy>, ExtensionPoint {
+
+    /**
+     * Aggregate the combined result of the jobs.
+     *
+     * @param status the combined build status of the jobs
+     * @return the combined result (null if there is none)
+     */
+    public abstract Result aggregate(@NonNull BuildStatus status);
+
+    /**
+     * @return all registered strategies
+     */
+    public static DescriptorExtensionList<AggregationStrategy, AggregationStrategyDescriptor> all() {
+        return Jenkins.get().getDescriptorList(AggregationStrategy.class);
+    }
+
+    /**
+     * The Descriptor of an {@link AggregationStrategy}.
+     */
+    public abstract static class AggregationStrategyDescriptor extends Descriptor<AggregationStrategy> {}
+}
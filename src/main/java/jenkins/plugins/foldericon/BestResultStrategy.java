@@ -0,0 +1,43 @@
+package jenkins.plugins.foldericon;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Result;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * The best result of all jobs wins.
+ */
+public class BestResultStrategy extends AggregationStrategy {
+
+    /**
+     * Ctor.
+     */
+    @DataBoundConstructor
+    public BestResultStrategy() {
+        // nothing to configure
+    }
+
+    @Override
+    public Result aggregate(@NonNull BuildStatus status) {
+        for (Result result : BuildStatus.getResults()) {
+            if (status.getCount(result) > 0) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The Descriptor.
+     */
+    @Extension(ordinal = 90)
+    public static class DescriptorImpl extends AggregationStrategyDescriptor {
+
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return Messages.BestResultStrategy_description();
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package jenkins.plugins.foldericon;
+
+import hudson.model.BallColor;
+import hudson.model.Result;
+import java.util.Arrays;
+
+/**
+ * The combined build status of the jobs considered by a {@link BuildStatusFolderIcon}.
+ * <p>
+ * The status counts the jobs by the result of their last completed build and by the weather of their health score, so
+ * it can be updated for a single job and the combined result is derived from the counters by an
+ * {@link AggregationStrategy} instead of combining all results again.
+ */
+public final class BuildStatus {
+
+    /**
+     * All results by their ordinal, from best to worst.
+     */
+    private static final Result[] RESULTS = {
+        Result.SUCCESS, Result.UNSTABLE, Result.FAILURE, Result.NOT_BUILT, Result.ABORTED
+    };
+
+    /**
+     * The upper bounds of the health scores of the weather icons, from worst to best.
+     */
+    private static final int[] HEALTH_BOUNDS = {20, 40, 60, 80, 100};
+
+    /**
+     * The status of a folder without any jobs.
+     */
+    static final BuildStatus EMPTY = new BuildStatus(newCounters(), 0, 0, 0);
+
+    private final int[] results;
+
+    private final int running;
+
+    private final int queued;
+
+    private final int disabled;
+
+    private final int total;
+
+    private final boolean stale;
+
+    private final long oldestCompleted;
+
+    private final int[] health;
+
+    private final long healthSum;
+
+    private final Result lastResult;
+
+    private final long lastCompleted;
+
+    /**
+     * Ctor.
+     *
+     * @param results  the number of jobs by the ordinal of the result of their last completed build.
+     * @param running  the number of jobs currently building.
+     * @param disabled the number of jobs that are not buildable.
+     * @param total    the number of jobs.
+     */
+    BuildStatus(int[] results, int running, int disabled, int total) {
+        this(results, running, 0, disabled, total);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param results  the number of jobs by the ordinal of the result of their last completed build.
+     * @param running  the number of jobs currently building.
+     * @param queued   the number of jobs waiting in the queue.
+     * @param disabled the number of jobs that are not buildable.
+     * @param total    the number of jobs.
+     */
+    BuildStatus(int[] results, int running, int queued, int disabled, int total) {
+        this(
+                results,
+                running,
+                queued,
+                disabled,
+                total,
+                false,
+                Long.MAX_VALUE,
+                new int[HEALTH_BOUNDS.length],
+                0L,
+                null,
+                0L);
+    }
+
+    private BuildStatus(
+            int[] results,
+            int running,
+            int queued,
+            int disabled,
+            int total,
+            boolean stale,
+            long oldestCompleted,
+            int[] health,
+            long healthSum,
+            Result lastResult,
+            long lastCompleted) {
+        this.results = results;
+        this.running = running;
+        this.queued = queued;
+        this.disabled = disabled;
+        this.total = total;
+        this.stale = stale;
+        this.oldestCompleted = oldestCompleted;
+        this.health = health;
+        this.healthSum = healthSum;
+        this.lastResult = lastResult;
+        this.lastCompleted = lastCompleted;
+    }
+
+    /**
+     * @return counters for the number of jobs by result ordinal, all zero.
+     */
+    static int[] newCounters() {
+        return new int[RESULTS.length];
+    }
+
+    /**
+     * @return counters for the number of jobs by the weather of their health score, all zero.
+     */
+    static int[] newHealthCounters() {
+        return new int[HEALTH_BOUNDS.length];
+    }
+
+    /**
+     * @param score a health score
+     * @return the index of the weather of the given health score, from worst to best.
+     */
+    static int getHealthIndex(int score) {
+        for (int index = 0; index < HEALTH_BOUNDS.length - 1; index++) {
+            if (score <= HEALTH_BOUNDS[index]) {
+                return index;
+            }
+        }
+        return HEALTH_BOUNDS.length - 1;
+    }
+
+    /**
+     * @return the worst result of the last completed builds (null if there is none).
+     */
+    public Result getResult() {
+        for (int ordinal = results.length - 1; ordinal >= 0; ordinal--) {
+            if (results[ordinal] > 0) {
+                return RESULTS[ordinal];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return all results by their ordinal, from best to worst.
+     */
+    public static Result[] getResults() {
+        return RESULTS.clone();
+    }
+
+    /**
+     * @param result the result
+     * @return the number of jobs whose last completed build has the given result.
+     */
+    public int getCount(Result result) {
+        return results[result.ordinal];
+    }
+
+    /**
+     * @return the number of jobs by the ordinal of the result of their last completed build.
+     */
+    public int[] getCounts() {
+        return Arrays.copyOf(results, results.length);
+    }
+
+    /**
+     * @return the number of jobs currently building.
+     */
+    public int getRunningCount() {
+        return running;
+    }
+
+    /**
+     * @return the number of jobs waiting in the queue.
+     */
+    public int getQueuedCount() {
+        return queued;
+    }
+
+    /**
+     * @return the number of jobs that are not buildable.
+     */
+    public int getDisabledCount() {
+        return disabled;
+    }
+
+    /**
+     * @return the number of jobs.
+     */
+    public int getTotalCount() {
+        return total;
+    }
+
+    /**
+     * @return whether any of the jobs is currently building.
+     */
+    public boolean isRunning() {
+        return running > 0;
+    }
+
+    /**
+     * @return whether any of the jobs is waiting in the queue.
+     */
+    public boolean isQueued() {
+        return queued > 0;
+    }
+
+    /**
+     * @return whether any of the jobs is buildable.
+     */
+    public boolean isBuildable() {
+        return disabled < total;
+    }
+
+    /**
+     * @return whether there are no jobs at all.
+     */
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * @return whether this is the last known status, because the current one could not be computed in time.
+     */
+    boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * @return a copy of this status marked as stale.
+     */
+    BuildStatus withStale() {
+        return stale
+                ? this
+                : new BuildStatus(
+                        results,
+                        running,
+                        queued,
+                        disabled,
+                        total,
+                        true,
+                        oldestCompleted,
+                        health,
+                        healthSum,
+                        lastResult,
+                        lastCompleted);
+    }
+
+    /**
+     * @return the time in milliseconds the oldest last completed build of the jobs has finished, not updated for
+     * changed jobs (Long.MAX_VALUE if unknown).
+     */
+    long getOldestCompleted() {
+        return oldestCompleted;
+    }
+
+    /**
+     * @param oldestCompleted the time in milliseconds the oldest last completed build of the jobs has finished.
+     * @return a copy of this status with the given time.
+     */
+    BuildStatus withOldestCompleted(long oldestCompleted) {
+        return new BuildStatus(
+                results,
+                running,
+                queued,
+                disabled,
+                total,
+                stale,
+                oldestCompleted,
+                health,
+                healthSum,
+                lastResult,
+                lastCompleted);
+    }
+
+    /**
+     * @return the number of jobs with a health score by the weather of their health score, from worst to best.
+     */
+    int[] getHealthCounts() {
+        return Arrays.copyOf(health, health.length);
+    }
+
+    /**
+     * @return the sum of the health scores of the jobs.
+     */
+    long getHealthSum() {
+        return healthSum;
+    }
+
+    /**
+     * @return the number of jobs with a health score.
+     */
+    public int getHealthCount() {
+        return Arrays.stream(health).sum();
+    }
+
+    /**
+     * @return the average health score of the jobs (-1 if none of the jobs has a health score).
+     */
+    public int getAverageHealth() {
+        int count = getHealthCount();
+        return count > 0 ? (int) (healthSum / count) : -1;
+    }
+
+    /**
+     * @return the upper bound of the worst weather of the health scores of the jobs (-1 if none of the jobs has a
+     * health score).
+     */
+    public int getWorstHealth() {
+        for (int index = 0; index < health.length; index++) {
+            if (health[index] > 0) {
+                return HEALTH_BOUNDS[index];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the result of the build that has completed last (null if unknown), not updated for deleted builds.
+     */
+    public Result getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * @return the time in milliseconds the build that has completed last has finished (0 if unknown).
+     */
+    long getLastCompleted() {
+        return lastCompleted;
+    }
+
+    /**
+     * @param lastResult    the result of the build that has completed last.
+     * @param lastCompleted the time in milliseconds the build that has completed last has finished.
+     * @return a copy of this status with the given build that has completed last.
+     */
+    BuildStatus withLastCompleted(Result lastResult, long lastCompleted) {
+        return new BuildStatus(
+                results,
+                running,
+                queued,
+                disabled,
+                total,
+                stale,
+                oldestCompleted,
+                health,
+                healthSum,
+                lastResult,
+                lastCompleted);
+    }
+
+    /**
+     * @param health    the number of jobs with a health score by the weather of their health score.
+     * @param healthSum the sum of the health scores of the jobs.
+     * @return a copy of this status with the given health scores.
+     */
+    BuildStatus withHealth(int[] health, long healthSum) {
+        return new BuildStatus(
+                results,
+                running,
+                queued,
+                disabled,
+                total,
+                stale,
+                oldestCompleted,
+                health,
+                healthSum,
+                lastResult,
+                lastCompleted);
+    }
+
+    /**
+     * Update this status for a changed status of one of its buildable jobs.
+     *
+     * @param previous the previous status of the job
+     * @param current  the current status of the job
+     * @return the updated status
+     */
+    BuildStatus withChanged(JobStatus previous, JobStatus current) {
+        int[] updated = results;
+        if (previous.getResult() != current.getResult()) {
+            updated = Arrays.copyOf(results, results.length);
+            if (previous.getResult() != null) {
+                updated[previous.getResult().ordinal]--;
+            }
+            if (current.getResult() != null) {
+                updated[current.getResult().ordinal]++;
+            }
+        }
+        int updatedRunning = running + (current.isBuilding() ? 1 : 0) - (previous.isBuilding() ? 1 : 0);
+        int updatedQueued = queued + (current.isQueued() ? 1 : 0) - (previous.isQueued() ? 1 : 0);
+        int[] updatedHealth = health;
+        long updatedHealthSum = healthSum;
+        if (previous.getHealth() != current.getHealth()) {
+            updatedHealth = Arrays.copyOf(health, health.length);
+            if (previous.getHealth() >= 0) {
+                updatedHealth[getHealthIndex(previous.getHealth())]--;
+                updatedHealthSum -= previous.getHealth();
+            }
+            if (current.getHealth() >= 0) {
+                updatedHealth[getHealthIndex(current.getHealth())]++;
+                updatedHealthSum += current.getHealth();
+            }
+        }
+        Result updatedLastResult = lastResult;
+        long updatedLastCompleted = lastCompleted;
+        if (current.getCompleted() > previous.getCompleted() && current.getCompleted() >= lastCompleted) {
+            updatedLastResult = current.getResult();
+            updatedLastCompleted = current.getCompleted();
+        }
+        return new BuildStatus(
+                updated,
+                updatedRunning,
+                updatedQueued,
+                disabled,
+                total,
+                stale,
+                oldestCompleted,
+                updatedHealth,
+                updatedHealthSum,
+                updatedLastResult,
+                updatedLastCompleted);
+    }
+
+    /**
+     * Combine this status with another one, as if it was computed for the jobs of both.
+     *
+     * @param other the other status
+     * @return the combined status
+     */
+    BuildStatus combine(BuildStatus other) {
+        int[] combined = Arrays.copyOf(results, results.length);
+        for (int ordinal = 0; ordinal < combined.length; ordinal++) {
+            combined[ordinal] += other.results[ordinal];
+        }
+        int[] combinedHealth = Arrays.copyOf(health, health.length);
+        for (int index = 0; index < combinedHealth.length; index++) {
+            combinedHealth[index] += other.health[index];
+        }
+        BuildStatus last = other.lastCompleted > lastCompleted ? other : this;
+        return new BuildStatus(
+                combined,
+                running + other.running,
+                queued + other.queued,
+                disabled + other.disabled,
+                total + other.total,
+                stale || other.stale,
+                Math.min(oldestCompleted, other.oldestCompleted),
+                combinedHealth,
+                healthSum + other.healthSum,
+                last.lastResult,
+                last.lastCompleted);
+    }
+
+    /**
+     * Remove the jobs of another status from this one, as if it was computed without them.
+     * <p>
+     * The time the oldest last completed build has finished is kept, so the status might expire earlier than needed.
+     *
+     * @param other the status of jobs included in this status
+     * @return the status without the other jobs, or null if the last completed build belongs to the other jobs, so
+     * the result of the last completed build of the remaining jobs is unknown.
+     */
+    BuildStatus without(BuildStatus other) {
+        if (other.lastCompleted > 0 && other.lastCompleted >= lastCompleted) {
+            return null;
+        }
+        int[] remaining = Arrays.copyOf(results, results.length);
+        for (int ordinal = 0; ordinal < remaining.length; ordinal++) {
+            // the other status might include a change this status has not been updated for yet
+            remaining[ordinal] = Math.max(0, remaining[ordinal] - other.results[ordinal]);
+        }
+        int[] remainingHealth = Arrays.copyOf(health, health.length);
+        for (int index = 0; index < remainingHealth.length; index++) {
+            remainingHealth[index] = Math.max(0, remainingHealth[index] - other.health[index]);
+        }
+        return new BuildStatus(
+                remaining,
+                Math.max(0, running - other.running),
+                Math.max(0, queued - other.queued),
+                Math.max(0, disabled - other.disabled),
+                Math.max(0, total - other.total),
+                stale,
+                oldestCompleted,
+                remainingHealth,
+                Math.max(0L, healthSum - other.healthSum),
+                lastResult,
+                lastCompleted);
+    }
+
+    /**
+     * @return the ball color representing the worst result of this status.
+     */
+    BallColor getBallColor() {
+        return getBallColor(getResult());
+    }
+
+    /**
+     * @param result the combined result of this status (null if there is none)
+     * @return the ball color representing the given result of this status.
+     */
+    BallColor getBallColor(Result result) {
+        BallColor color;
+        if (result != null) {
+            color = result.color;
+        } else if (isEmpty() || isBuildable()) {
+            color = BallColor.NOTBUILT;
+        } else {
+            color = BallColor.DISABLED;
+        }
+
+        return isRunning() ? color.anime() : color;
+    }
+
+    /**
+     * @return the icon class name of the symbol representing the worst result of this status.
+     */
+    String getIconClassName() {
+        return getIconClassName(getResult());
+    }
+
+    /**
+     * @param result the combined result of this status (null if there is none)
+     * @return the icon class name of the symbol representing the given result of this status.
+     */
+    String getIconClassName(Result result) {
+        return "symbol-status-" + getBallColor(result).getIconName();
+    }
+}
@@ -0,0 +1,377 @@
+package jenkins.plugins.foldericon;
+
+import com.cloudbees.hudson.plugins.folder.AbstractFolder;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Result;
+import hudson.model.RootAction;
+import hudson.model.View;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkins.ui.symbol.Symbol;
+import org.jenkins.ui.symbol.SymbolRequest;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.Ancestor;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.verb.GET;
+
+/**
+ * Provides the combined build status of many {@link BuildStatusFolderIcon} folders in a single response, e.g. for
+ * wallboards.
+ * <p>
+ * Folders are selected by their full names ({@code folder} parameter, may be repeated), all folders directly within a
+ * folder ({@code parent} parameter, empty for top-level folders) and / or all folders within a folder ({@code subtree}
+ * parameter, empty for all folders). Only folders visible to the current user are returned.
+ * <p>
+ * Pages showing such folders wait for status changes and update the icons in place, instead of reloading the page.
+ * Pages listing many of them render placeholders and load the statuses of the visible folders in batches, so the time
+ * to render the page does not depend on the number of folders.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class BuildStatusAction implements RootAction {
+
+    public static final String URL_NAME = "folder-build-status";
+
+    /**
+     * Time in milliseconds a client waits for changes before it has to poll again.
+     */
+    private static final long POLL_TIMEOUT = 25_000L;
+
+    /**
+     * Maximum number of clients waiting for changes at the same time, so waiting clients never occupy all request
+     * threads. Further clients poll the statuses instead.
+     */
+    static final int MAX_WAITERS = SystemProperties.getInteger(BuildStatusAction.class.getName() + ".maxWaiters", 20);
+
+    /**
+     * Time in milliseconds a client polls the statuses after, if it cannot wait for changes.
+     */
+    private static final long POLL_INTERVAL = 30_000L;
+
+    private static final Semaphore WAITERS = new Semaphore(MAX_WAITERS);
+
+    /**
+     * Number of build status folders a page may list before their statuses are loaded once they are visible, instead
+     * of computing them while the page is rendered (negative to never defer them).
+     */
+    static final int DEFER_THRESHOLD =
+            SystemProperties.getInteger(BuildStatusAction.class.getName() + ".deferThreshold", 100);
+
+    private static final String DEFERRED_ATTRIBUTE = BuildStatusAction.class.getName() + ".deferred";
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    /**
+     * Get the combined build status of the selected folders as JSON.
+     * <p>
+     * The response has an {@code ETag}, so clients polling for changes receive {@code 304 Not Modified} as long as no
+     * status has been changed.
+     * <p>
+     * With the {@code symbols} parameter, each folder also provides its {@code name}, {@code description} and the
+     * rendered {@code symbol}, so pages can replace the placeholders of deferred folders.
+     *
+     * @param req the request
+     * @return the statuses of the selected folders
+     */
+    @GET
+    public HttpResponse doStatuses(StaplerRequest2 req) {
+        Map<String, BuildStatusFolderIcon> icons = new LinkedHashMap<>();
+        String[] folders = req.getParameterValues("folder");
+        if (folders != null) {
+            for (String fullName : folders) {
+                add(icons, Jenkins.get().getItemByFullName(fullName, AbstractFolder.class));
+            }
+        }
+
+        String parent = req.getParameter("parent");
+        if (parent != null) {
+            ItemGroup<?> group =
+                    parent.isEmpty() ? Jenkins.get() : Jenkins.get().getItemByFullName(parent, AbstractFolder.class);
+            if (group != null) {
+                for (Item item : group.getItems()) {
+                    if (item instanceof AbstractFolder<?> folder) {
+                        add(icons, folder);
+                    }
+                }
+            }
+        }
+
+        String subtree = req.getParameter("subtree");
+        if (subtree != null) {
+            if (subtree.isEmpty()) {
+                Jenkins.get().allItems(AbstractFolder.class).forEach(folder -> add(icons, folder));
+            } else {
+                AbstractFolder<?> root = Jenkins.get().getItemByFullName(subtree, AbstractFolder.class);
+                if (root != null) {
+                    add(icons, root);
+                    Items.allItems(root, AbstractFolder.class).forEach(folder -> add(icons, folder));
+                }
+            }
+        }
+
+        boolean symbols = req.getParameter("symbols") != null;
+        JSONArray statuses = new JSONArray();
+        for (Map.Entry<String, BuildStatusFolderIcon> entry : icons.entrySet()) {
+            BuildStatusFolderIcon icon = entry.getValue();
+            BuildStatus status = icon.getRequestStatus();
+            Result result = icon.getResult(status);
+            String iconClassName = icon.getIconClassName(status);
+            JSONObject json = new JSONObject()
+                    .element("fullName", entry.getKey())
+                    .element("color", status.getBallColor(result).toString())
+                    .element("iconClassName", iconClassName)
+                    .element("running", status.isRunning())
+                    .element("queued", status.isQueued())
+                    .element("stale", status.isStale());
+            if (result != null) {
+                json.element("result", result.toString());
+            }
+            if (symbols) {
+                String description = icon.getDescription();
+                json.element("name", getName(entry.getKey()))
+                        .element("description", description)
+                        .element("symbol", getSymbol(iconClassName, description));
+            }
+            statuses.add(json);
+        }
+
+        return new StatusesResponse(
+                new JSONObject().element("folders", statuses).toString());
+    }
+
+    /**
+     * Wait for changes of the combined build status of folders (long polling).
+     * <p>
+     * The response contains the sequence number to wait for the next changes and the current status of the changed
+     * folders, including the rendered symbol, so clients can update the icons in place. Only changes of folders within
+     * the given parent complete the wait.
+     * <p>
+     * If too many clients are waiting already, the response is returned immediately with the {@code poll} interval in
+     * milliseconds, after which the client should fetch the statuses of all folders within the parent instead.
+     *
+     * @param since  the sequence number of the latest change known to the client
+     * @param parent the full name of the folder containing the folders of interest (empty for top-level folders)
+     * @return the changed statuses
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @GET
+    public HttpResponse doChanges(@QueryParameter long since, @QueryParameter String parent)
+            throws InterruptedException {
+        if (!WAITERS.tryAcquire()) {
+            return HttpResponses.okJSON(new JSONObject()
+                    .element("sequence", BuildStatusEngine.getSequence())
+                    .element("folders", new JSONArray())
+                    .element("poll", POLL_INTERVAL));
+        }
+
+        BuildStatusEngine.Changes changes;
+        try {
+            changes = BuildStatusEngine.awaitChanges(since, parent, POLL_TIMEOUT);
+        } finally {
+            WAITERS.release();
+        }
+
+        JSONArray statuses = new JSONArray();
+        for (String fullName : changes.fullNames()) {
+            AbstractFolder<?> folder = Jenkins.get().getItemByFullName(fullName, AbstractFolder.class);
+            if (folder != null && folder.getIcon() instanceof BuildStatusFolderIcon icon) {
+                String iconClassName = icon.getIconClassName();
+                String description = icon.getDescription();
+                statuses.add(new JSONObject()
+                        .element("fullName", fullName)
+                        .element("name", folder.getName())
+                        .element("iconClassName", iconClassName)
+                        .element("description", description)
+                        .element("symbol", getSymbol(iconClassName, description)));
+            }
+        }
+
+        return HttpResponses.okJSON(
+                new JSONObject().element("sequence", changes.sequence()).element("folders", statuses));
+    }
+
+    /**
+     * Get the full name of the folder whose page is currently rendered, if it contains any folder using a
+     * {@link BuildStatusFolderIcon}, so the page can wait for their changes.
+     *
+     * @return the full name of the folder (empty for the root) or null if the page does not show such folders.
+     */
+    public static String getPageScope() {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        ItemGroup<?> group = req != null ? getPageGroup(req) : null;
+        if (group == null) {
+            return null;
+        }
+
+        for (Item item : group.getItems()) {
+            if (item instanceof AbstractFolder<?> folder && folder.getIcon() instanceof BuildStatusFolderIcon) {
+                return group instanceof Item parent ? parent.getFullName() : "";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the icon of a folder listed by the page that is currently rendered shows a placeholder, because
+     * the page lists more build status folders than {@link #DEFER_THRESHOLD}.
+     * <p>
+     * The decision is made once per request, the deferred folders are remembered so the page can load their statuses
+     * once they are visible.
+     *
+     * @param folder the folder
+     * @return whether the status of the folder is loaded by the page
+     */
+    static boolean isDeferred(AbstractFolder<?> folder) {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        if (req == null || folder == null || DEFER_THRESHOLD < 0) {
+            return false;
+        }
+
+        Deferred deferred = (Deferred) req.getAttribute(DEFERRED_ATTRIBUTE);
+        if (deferred == null) {
+            ItemGroup<?> group = getPageGroup(req);
+            deferred = new Deferred(
+                    group != null && countIcons(group) > DEFER_THRESHOLD ? group : null, ConcurrentHashMap.newKeySet());
+            req.setAttribute(DEFERRED_ATTRIBUTE, deferred);
+        }
+
+        if (deferred.group() == null || deferred.group() != folder.getParent()) {
+            return false;
+        }
+        deferred.names().add(folder.getName());
+        return true;
+    }
+
+    /**
+     * Get the names of the folders whose icons show a placeholder on the page that is currently rendered.
+     *
+     * @return the names as JSON array or null if no icon has been deferred.
+     */
+    public static String getDeferredFolders() {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        Deferred deferred = req != null ? (Deferred) req.getAttribute(DEFERRED_ATTRIBUTE) : null;
+        if (deferred == null || deferred.names().isEmpty()) {
+            return null;
+        }
+        return JSONArray.fromObject(deferred.names()).toString();
+    }
+
+    private static ItemGroup<?> getPageGroup(StaplerRequest2 req) {
+        List<Ancestor> ancestors = req.getAncestors();
+        if (ancestors == null || ancestors.isEmpty()) {
+            return null;
+        }
+
+        Object page = ancestors.get(ancestors.size() - 1).getObject();
+        if (page instanceof View view) {
+            return view.getOwner().getItemGroup();
+        } else if (page instanceof ItemGroup<?> itemGroup) {
+            return itemGroup;
+        }
+        return null;
+    }
+
+    private static int countIcons(ItemGroup<?> group) {
+        int count = 0;
+        for (Item item : group.getItems()) {
+            if (item instanceof AbstractFolder<?> folder && folder.getIcon() instanceof BuildStatusFolderIcon) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The folders whose icons show a placeholder while a page is rendered.
+     *
+     * @param group the item group listed by the page (null if no icon is deferred)
+     * @param names the names of the deferred folders
+     */
+    private record Deferred(ItemGroup<?> group, Set<String> names) {}
+
+    /**
+     * @return the sequence number of the latest change, so a page only waits for later changes.
+     */
+    public static long getSequence() {
+        return BuildStatusEngine.getSequence();
+    }
+
+    private static String getSymbol(String iconClassName, String description) {
+        return Symbol.get(new SymbolRequest.Builder()
+                .withName(iconClassName.substring("symbol-".length()))
+                .withTooltip(description)
+                .build());
+    }
+
+    private static String getName(String fullName) {
+        return fullName.substring(fullName.lastIndexOf('/') + 1);
+    }
+
+    private static void add(Map<String, BuildStatusFolderIcon> icons, AbstractFolder<?> folder) {
+        if (folder != null && folder.getIcon() instanceof BuildStatusFolderIcon icon) {
+            icons.put(folder.getFullName(), icon);
+        }
+    }
+
+    /**
+     * JSON response supporting conditional requests.
+     */
+    private static final class StatusesResponse implements HttpResponse {
+
+        private final String body;
+
+        private final String etag;
+
+        StatusesResponse(String body) {
+            this.body = body;
+            this.etag = '"' + Util.getDigestOf(body) + '"';
+        }
+
+        @Override
+        public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node)
+                throws IOException, ServletException {
+            rsp.setHeader("ETag", etag);
+            rsp.setHeader("Cache-Control", "no-cache");
+            if (etag.equals(req.getHeader("If-None-Match"))) {
+                rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            rsp.setContentType("application/json;charset=UTF-8");
+            rsp.getWriter().write(body);
+        }
+    }
+}
@@ -0,0 +1,1062 @@
+package jenkins.plugins.foldericon;
+
+import com.cloudbees.hudson.plugins.folder.AbstractFolder;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.QueueListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps the combined build status of all {@link BuildStatusFolderIcon}s up to date.
+ * <p>
+ * Build and item events are propagated to the icons of all folders containing the affected item, so the icons never
+ * have to recompute their status unless something within the folder actually changed.
+ * <p>
+ * The combined build status of folders with very many jobs is computed in parallel. Whether that pays off depends on
+ * the hardware, so the threshold, the batch size and the parallelism are only defaults that can be changed with system
+ * properties after measuring them with {@code BuildStatusBenchmark}, e.g. with {@code mvn test -P benchmark}.
+ */
+@Restricted(NoExternalUse.class)
+public final class BuildStatusEngine {
+
+    /**
+     * Number of jobs above which the combined build status is computed in parallel.
+     */
+    static final int PARALLEL_THRESHOLD =
+            SystemProperties.getInteger(BuildStatusEngine.class.getName() + ".parallelThreshold", 2000);
+
+    /**
+     * Maximum number of jobs computed by a single task of a parallel computation.
+     */
+    private static final int PARALLEL_BATCH_SIZE =
+            SystemProperties.getInteger(BuildStatusEngine.class.getName() + ".parallelBatchSize", 500);
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(SystemProperties.getInteger(
+            BuildStatusEngine.class.getName() + ".parallelism",
+            Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+    /**
+     * Time in milliseconds a request waits for a status to be computed before the last known one is used instead, a
+     * value of 0 waits until the computation is done.
+     */
+    static final long COMPUTATION_BUDGET =
+            SystemProperties.getLong(BuildStatusEngine.class.getName() + ".computationBudget", 1000L);
+
+    /**
+     * Time in milliseconds events of a folder are coalesced before its status is recomputed and clients are notified,
+     * a value of 0 notifies clients immediately and recomputes on the next access. Until the recomputation, the
+     * previous status is shown.
+     */
+    // not final, so it can be changed from the script console
+    static long DEBOUNCE_WINDOW = SystemProperties.getLong(BuildStatusEngine.class.getName() + ".debounceWindow", 500L);
+
+    private static final AtomicLong AVOIDED_RECOMPUTATIONS = new AtomicLong();
+
+    private static final AtomicLong EVENTS = new AtomicLong();
+
+    private static final AtomicLong RECOMPUTATIONS = new AtomicLong();
+
+    private static final AtomicLong PERMISSIONS = new AtomicLong();
+
+    /**
+     * Number of threads computing statuses in the background.
+     */
+    static final int COMPUTATION_THREADS =
+            SystemProperties.getInteger(BuildStatusEngine.class.getName() + ".computationThreads", 2);
+
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+    private static final ConcurrentMap<Object, Computation> COMPUTATIONS = new ConcurrentHashMap<>();
+
+    private static final Object CHANGES_LOCK = new Object();
+
+    /**
+     * The sequence number of the latest change of each folder, by the full name of its parent.
+     */
+    private static final Map<String, Map<String, Long>> CHANGES = new HashMap<>();
+
+    /**
+     * The clients waiting for changes, by the full name of the parent of the folders they are interested in (null for
+     * all folders).
+     */
+    private static final Map<String, List<CompletableFuture<Void>>> WAITERS = new HashMap<>();
+
+    private static long sequence;
+
+    /**
+     * The icons of the folders interested in the items of an item group, by the full name of the group.
+     * <p>
+     * All jobs within the same group share an entry, so the index grows with the number of folders instead of the
+     * number of jobs. It is built at startup and entries are dropped whenever folders or their icons change.
+     */
+    private static final ConcurrentMap<String, BuildStatusFolderIcon[]> INTERESTS = new ConcurrentHashMap<>();
+
+    private static final AtomicLong INTERESTS_VERSION = new AtomicLong();
+
+    private static final BuildStatusFolderIcon[] NO_ICONS = {};
+
+    /**
+     * The icons explicitly selecting a job, by the job's full name.
+     */
+    private static final Map<String, Set<BuildStatusFolderIcon>> SELECTIONS = new HashMap<>();
+
+    /**
+     * The icon whose selection is indexed, by the full name of its folder, so a replaced icon is removed from the
+     * index right away (guarded by {@link #SELECTIONS}).
+     */
+    private static final Map<String, BuildStatusFolderIcon> INDEXED_ICONS = new HashMap<>();
+
+    private BuildStatusEngine() {
+        // hidden
+    }
+
+    /**
+     * @return the number of status computations avoided by reusing a status within the same HTTP request or a
+     * computation in progress.
+     */
+    public static long getAvoidedRecomputations() {
+        return AVOIDED_RECOMPUTATIONS.get();
+    }
+
+    /**
+     * Record a status computation avoided by reusing a status within the same HTTP request or a computation in
+     * progress.
+     */
+    static void recordAvoidedRecomputation() {
+        AVOIDED_RECOMPUTATIONS.incrementAndGet();
+    }
+
+    /**
+     * @return the number of events received that might have changed the status of a folder.
+     */
+    public static long getEvents() {
+        return EVENTS.get();
+    }
+
+    /**
+     * Record an event that might have changed the status of a folder.
+     */
+    static void recordEvent() {
+        EVENTS.incrementAndGet();
+    }
+
+    /**
+     * @return the number of status computations performed.
+     */
+    public static long getRecomputations() {
+        return RECOMPUTATIONS.get();
+    }
+
+    /**
+     * Record a status computation.
+     */
+    static void recordRecomputation() {
+        RECOMPUTATIONS.incrementAndGet();
+    }
+
+    /**
+     * @return the version of the permissions, changed whenever the global configuration or the configuration of a
+     * folder has been saved, as either might grant or revoke permissions to jobs.
+     */
+    static long getPermissionsVersion() {
+        return PERMISSIONS.get();
+    }
+
+    /**
+     * @return the sequence number of the latest status change.
+     */
+    static long getSequence() {
+        synchronized (CHANGES_LOCK) {
+            return sequence;
+        }
+    }
+
+    /**
+     * Record a possible change of the combined build status of a folder and wake up the clients waiting for changes of
+     * the folders within its parent.
+     *
+     * @param folder the folder
+     */
+    static void recordChange(AbstractFolder<?> folder) {
+        String fullName = folder.getFullName();
+        String parent = getParentFullName(fullName);
+        List<CompletableFuture<Void>> woken = new ArrayList<>();
+        synchronized (CHANGES_LOCK) {
+            CHANGES.computeIfAbsent(parent, key -> new HashMap<>()).put(fullName, ++sequence);
+            List<CompletableFuture<Void>> waiting = WAITERS.remove(parent);
+            if (waiting != null) {
+                woken.addAll(waiting);
+            }
+            waiting = WAITERS.remove(null);
+            if (waiting != null) {
+                woken.addAll(waiting);
+            }
+        }
+        woken.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * Forget the changes of a folder that does not exist anymore.
+     *
+     * @param fullName the full name of the folder
+     */
+    static void forgetChanges(String fullName) {
+        String parent = getParentFullName(fullName);
+        synchronized (CHANGES_LOCK) {
+            Map<String, Long> changes = CHANGES.get(parent);
+            if (changes != null && changes.remove(fullName) != null && changes.isEmpty()) {
+                CHANGES.remove(parent);
+            }
+        }
+    }
+
+    /**
+     * Wait until the combined build status of any folder has possibly changed since the given sequence number.
+     *
+     * @param since   the sequence number of the latest change known to the client
+     * @param timeout the maximum time to wait in milliseconds
+     * @return the changes since the given sequence number, empty if there were none within the timeout.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    static Changes awaitChanges(long since, long timeout) throws InterruptedException {
+        return awaitChanges(since, null, timeout);
+    }
+
+    /**
+     * Wait until the combined build status of a folder within the given parent has possibly changed since the given
+     * sequence number.
+     * <p>
+     * Changes of folders within other parents do not wake up the client, so clients only return when there is
+     * something to update.
+     *
+     * @param since   the sequence number of the latest change known to the client
+     * @param parent  the full name of the folder containing the folders of interest (empty for top-level folders, null
+     *                for all folders)
+     * @param timeout the maximum time to wait in milliseconds
+     * @return the changes since the given sequence number, empty if there were none within the timeout.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    static Changes awaitChanges(long since, String parent, long timeout) throws InterruptedException {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        synchronized (CHANGES_LOCK) {
+            Set<String> changed = getChanges(since, parent);
+            // a sequence number from before a restart is never reached again
+            if (!changed.isEmpty() || since > sequence || timeout <= 0) {
+                return new Changes(sequence, changed);
+            }
+            WAITERS.computeIfAbsent(parent, key -> new ArrayList<>()).add(waiter);
+        }
+
+        try {
+            waiter.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // no changes within the timeout
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            synchronized (CHANGES_LOCK) {
+                List<CompletableFuture<Void>> waiting = WAITERS.get(parent);
+                if (waiting != null && waiting.remove(waiter) && waiting.isEmpty()) {
+                    WAITERS.remove(parent);
+                }
+            }
+        }
+
+        synchronized (CHANGES_LOCK) {
+            return new Changes(sequence, getChanges(since, parent));
+        }
+    }
+
+    private static Set<String> getChanges(long since, String parent) {
+        Set<String> changed = new TreeSet<>();
+        if (parent != null) {
+            collectChanges(since, CHANGES.getOrDefault(parent, Map.of()), changed);
+        } else {
+            CHANGES.values().forEach(changes -> collectChanges(since, changes, changed));
+        }
+        return changed;
+    }
+
+    private static void collectChanges(long since, Map<String, Long> changes, Set<String> changed) {
+        for (Map.Entry<String, Long> entry : changes.entrySet()) {
+            if (entry.getValue() > since) {
+                changed.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * @param fullName the full name of an item
+     * @return the full name of the item's parent (empty for top-level items).
+     */
+    static String getParentFullName(String fullName) {
+        int index = fullName.lastIndexOf('/');
+        return index > 0 ? fullName.substring(0, index) : "";
+    }
+
+    /**
+     * Folders with possibly changed statuses.
+     *
+     * @param sequence  the sequence number of the latest change
+     * @param fullNames the full names of the changed folders
+     */
+    record Changes(long sequence, Set<String> fullNames) {}
+
+    /**
+     * Compute a status on the current thread, unless a computation of the same key is in progress already, which is
+     * waited for instead.
+     * <p>
+     * A computation of the same key that is still queued for the background is taken over and run on the current
+     * thread, so a computation never waits for queued work, e.g. a folder for the status of one of its subfolders.
+     *
+     * @param key         the key of the computation, e.g. the folder and the generation of its status
+     * @param computation the computation
+     * @return the computed status
+     */
+    static BuildStatus computeOnce(Object key, Supplier<BuildStatus> computation) {
+        Computation created = new Computation(key, computation);
+        Computation running = COMPUTATIONS.putIfAbsent(key, created);
+        if (running == null) {
+            created.run();
+            running = created;
+        } else if (!running.tryRun()) {
+            recordAvoidedRecomputation();
+        }
+
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Compute a status in the background, unless a computation of the same key is in progress already, which is
+     * returned instead.
+     *
+     * @param key         the key of the computation, e.g. the folder and the generation of its status
+     * @param computation the computation
+     * @return the computation in progress
+     */
+    static Future<BuildStatus> computeOnceAsync(Object key, Supplier<BuildStatus> computation) {
+        Computation created = new Computation(key, computation);
+        Computation running = COMPUTATIONS.putIfAbsent(key, created);
+        if (running != null) {
+            recordAvoidedRecomputation();
+            return running;
+        }
+
+        execute(created);
+        return created;
+    }
+
+    /**
+     * Run a task in the background on the threads reserved for status computations, so long computations never
+     * occupy the threads shared with Jenkins.
+     *
+     * @param task the task
+     */
+    static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                COMPUTATION_THREADS,
+                COMPUTATION_THREADS,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), BuildStatusEngine.class.getSimpleName()));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A computation of a status, run by whichever thread starts it first.
+     */
+    private static final class Computation extends CompletableFuture<BuildStatus> implements Runnable {
+
+        private final Object key;
+
+        private final Supplier<BuildStatus> computation;
+
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        Computation(Object key, Supplier<BuildStatus> computation) {
+            this.key = key;
+            this.computation = computation;
+        }
+
+        @Override
+        public void run() {
+            tryRun();
+        }
+
+        /**
+         * Run the computation on the current thread, unless it has been started already.
+         *
+         * @return whether the computation has been run by the current thread
+         */
+        boolean tryRun() {
+            if (!started.compareAndSet(false, true)) {
+                return false;
+            }
+            try {
+                complete(computation.get());
+            } catch (RuntimeException | Error ex) {
+                completeExceptionally(ex);
+            } finally {
+                COMPUTATIONS.remove(key, this);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Compute the combined build status of the given jobs, in parallel for very large numbers of jobs.
+     *
+     * @param jobs the jobs
+     * @return the combined build status
+     */
+    @SuppressWarnings("rawtypes")
+    static BuildStatus aggregate(List<? extends Job> jobs) {
+        return aggregate(jobs, 0L, false);
+    }
+
+    /**
+     * Compute the combined build status of the given jobs whose last build has completed since the given time, in
+     * parallel for very large numbers of jobs.
+     *
+     * @param jobs   the jobs
+     * @param since  the time in milliseconds the last build of a job has to be completed since (0 for all jobs)
+     * @param health whether the health scores of the jobs are counted, which might load build records
+     * @return the combined build status
+     */
+    @SuppressWarnings("rawtypes")
+    static BuildStatus aggregate(List<? extends Job> jobs, long since, boolean health) {
+        if (jobs.size() > PARALLEL_THRESHOLD) {
+            return aggregateParallel(jobs, since, health);
+        } else {
+            return aggregateSequential(jobs, since, health);
+        }
+    }
+
+    /**
+     * Compute the combined build status of the given jobs on the current thread.
+     *
+     * @param jobs the jobs
+     * @return the combined build status
+     */
+    @SuppressWarnings("rawtypes")
+    static BuildStatus aggregateSequential(List<? extends Job> jobs) {
+        return aggregateSequential(jobs, 0L, false);
+    }
+
+    /**
+     * Compute the combined build status of the given jobs whose last build has completed since the given time on the
+     * current thread.
+     *
+     * @param jobs   the jobs
+     * @param since  the time in milliseconds the last build of a job has to be completed since (0 for all jobs)
+     * @param health whether the health scores of the jobs are counted, which might load build records
+     * @return the combined build status
+     */
+    @SuppressWarnings("rawtypes")
+    static BuildStatus aggregateSequential(List<? extends Job> jobs, long since, boolean health) {
+        JobStatusStore store = JobStatusStore.get();
+        int[] results = BuildStatus.newCounters();
+        int running = 0;
+        int queued = 0;
+        int disabled = 0;
+        int total = 0;
+        long oldest = Long.MAX_VALUE;
+        int[] healthCounters = BuildStatus.newHealthCounters();
+        long healthSum = 0L;
+        Result lastResult = null;
+        long lastCompleted = 0L;
+
+        for (Job<?, ?> job : jobs) {
+            // use the job's status summary instead of loading its build records
+            boolean buildable = job.isBuildable();
+            JobStatus jobStatus = buildable || since > 0 ? store.get(job) : null;
+            if (jobStatus != null && jobStatus.getCompleted() < since) {
+                continue;
+            }
+            total++;
+            if (jobStatus != null) {
+                oldest = Math.min(oldest, jobStatus.getCompleted());
+            }
+
+            if (buildable) {
+                if (jobStatus.isBuilding()) {
+                    running++;
+                }
+                if (jobStatus.isQueued()) {
+                    queued++;
+                }
+                if (jobStatus.getResult() != null) {
+                    results[jobStatus.getResult().ordinal]++;
+                }
+                if (jobStatus.getResult() != null && jobStatus.getCompleted() > lastCompleted) {
+                    lastResult = jobStatus.getResult();
+                    lastCompleted = jobStatus.getCompleted();
+                }
+                int score = health ? store.getHealth(job, jobStatus) : -1;
+                if (score >= 0) {
+                    healthCounters[BuildStatus.getHealthIndex(score)]++;
+                    healthSum += score;
+                }
+            } else {
+                disabled++;
+            }
+        }
+
+        return new BuildStatus(results, running, queued, disabled, total)
+                .withOldestCompleted(oldest)
+                .withHealth(healthCounters, healthSum)
+                .withLastCompleted(lastResult, lastCompleted);
+    }
+
+    /**
+     * Compute the combined build status of the given jobs in batches on a bounded pool.
+     *
+     * @param jobs the jobs
+     * @return the combined build status
+     */
+    @SuppressWarnings("rawtypes")
+    static BuildStatus aggregateParallel(List<? extends Job> jobs) {
+        return aggregateParallel(jobs, 0L, false);
+    }
+
+    /**
+     * Compute the combined build status of the given jobs whose last build has completed since the given time in
+     * batches on a bounded pool.
+     *
+     * @param jobs   the jobs
+     * @param since  the time in milliseconds the last build of a job has to be completed since (0 for all jobs)
+     * @param health whether the health scores of the jobs are counted, which might load build records
+     * @return the combined build status
+     */
+    @SuppressWarnings("rawtypes")
+    static BuildStatus aggregateParallel(List<? extends Job> jobs, long since, boolean health) {
+        if (jobs.isEmpty()) {
+            return BuildStatus.EMPTY;
+        }
+        return POOL.invoke(new AggregateTask(jobs, since, health));
+    }
+
+    /**
+     * Task computing the combined build status of a range of jobs, split in halves until it is small enough.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final class AggregateTask extends RecursiveTask<BuildStatus> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<? extends Job> jobs;
+
+        private final long since;
+
+        private final boolean health;
+
+        AggregateTask(List<? extends Job> jobs, long since, boolean health) {
+            this.jobs = jobs;
+            this.since = since;
+            this.health = health;
+        }
+
+        @Override
+        protected BuildStatus compute() {
+            if (jobs.size() <= PARALLEL_BATCH_SIZE) {
+                // pool threads do not inherit the caller's authentication
+                try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                    return aggregateSequential(jobs, since, health);
+                }
+            }
+
+            int middle = jobs.size() / 2;
+            AggregateTask first = new AggregateTask(jobs.subList(0, middle), since, health);
+            first.fork();
+            BuildStatus second = new AggregateTask(jobs.subList(middle, jobs.size()), since, health).compute();
+            return first.join().combine(second);
+        }
+    }
+
+    /**
+     * Apply an action to the {@link BuildStatusFolderIcon}s of all folders containing the given item group, unless
+     * the items of the group are beyond the depth considered by the icon.
+     *
+     * @param group  the innermost item group
+     * @param action the action to apply
+     */
+    static void forEachIcon(ItemGroup<?> group, Consumer<BuildStatusFolderIcon> action) {
+        for (BuildStatusFolderIcon icon : getInterestedIcons(group)) {
+            action.accept(icon);
+        }
+    }
+
+    /**
+     * Get the {@link BuildStatusFolderIcon}s of all folders interested in the items of the given item group, from the
+     * index if possible.
+     *
+     * @param group the innermost item group
+     * @return the icons, innermost folder first
+     */
+    static BuildStatusFolderIcon[] getInterestedIcons(ItemGroup<?> group) {
+        if (!(group instanceof Item item)) {
+            return NO_ICONS;
+        }
+
+        String fullName = item.getFullName();
+        BuildStatusFolderIcon[] icons = INTERESTS.get(fullName);
+        if (icons != null) {
+            boolean attached = true;
+            for (BuildStatusFolderIcon icon : icons) {
+                attached &= icon.isAttached();
+            }
+            if (attached) {
+                return icons;
+            }
+            // the icon of a folder has been replaced without saving it
+            forgetInterests(fullName);
+        }
+
+        long version = INTERESTS_VERSION.get();
+        icons = collectIcons(group);
+        INTERESTS.put(fullName, icons);
+        if (INTERESTS_VERSION.get() != version) {
+            // folders or icons might have changed while collecting the icons
+            INTERESTS.remove(fullName, icons);
+        }
+        return icons;
+    }
+
+    private static BuildStatusFolderIcon[] collectIcons(ItemGroup<?> group) {
+        List<BuildStatusFolderIcon> icons = new ArrayList<>();
+        ItemGroup<?> current = group;
+        int levels = 1;
+        while (current instanceof Item item) {
+            if (current instanceof AbstractFolder<?> folder) {
+                if (folder.getIcon() instanceof BuildStatusFolderIcon icon && icon.isWithinDepth(levels)) {
+                    icons.add(icon);
+                }
+                levels++;
+            }
+            current = item.getParent();
+        }
+        return icons.isEmpty() ? NO_ICONS : icons.toArray(NO_ICONS);
+    }
+
+    /**
+     * Drop the indexed icons of a folder and of all item groups within it, e.g. because the folder has been moved or
+     * its icon has been changed.
+     *
+     * @param fullName the full name of the folder
+     */
+    static void forgetInterests(String fullName) {
+        INTERESTS_VERSION.incrementAndGet();
+        String prefix = fullName + "/";
+        INTERESTS.keySet().removeIf(key -> key.equals(fullName) || key.startsWith(prefix));
+    }
+
+    /**
+     * @return the number of item groups with indexed icons.
+     */
+    static int getIndexedGroups() {
+        return INTERESTS.size();
+    }
+
+    /**
+     * Build the index of interested icons for all folders, once all jobs have been loaded.
+     */
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void indexInterests() {
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            for (AbstractFolder<?> folder : Jenkins.get().allItems(AbstractFolder.class)) {
+                getInterestedIcons(folder);
+            }
+        }
+    }
+
+    /**
+     * Migrate the selections persisted by previous versions of all folders, once all jobs have been loaded.
+     */
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void migrateSelections() {
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            for (AbstractFolder<?> folder : Jenkins.get().allItems(AbstractFolder.class)) {
+                migrateSelection(folder);
+            }
+        }
+    }
+
+    /**
+     * Migrate the selection persisted by a previous version of a folder and save the folder if needed, e.g. because
+     * the folder has been loaded again. Nothing is done until all jobs have been loaded.
+     *
+     * @param folder the folder
+     */
+    static void migrateSelection(AbstractFolder<?> folder) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null || jenkins.getInitLevel().compareTo(InitMilestone.JOB_CONFIG_ADAPTED) < 0) {
+            // folders saved while loading might not contain their jobs yet
+            return;
+        }
+        if (folder.getIcon() instanceof BuildStatusFolderIcon icon) {
+            boolean migrated;
+            try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                migrated = icon.migrateSelection();
+            }
+            if (migrated) {
+                icon.saveOwner();
+            }
+        }
+    }
+
+    /**
+     * Update the index of the jobs explicitly selected by an icon.
+     *
+     * @param icon     the icon
+     * @param previous the full names of the jobs previously selected by the icon (may be null)
+     * @param current  the full names of the jobs currently selected by the icon
+     */
+    static void indexSelection(BuildStatusFolderIcon icon, Set<String> previous, Set<String> current) {
+        synchronized (SELECTIONS) {
+            if (previous != null) {
+                for (String fullName : previous) {
+                    Set<BuildStatusFolderIcon> icons = SELECTIONS.get(fullName);
+                    if (icons != null && icons.remove(icon) && icons.isEmpty()) {
+                        SELECTIONS.remove(fullName);
+                    }
+                }
+            }
+            for (String fullName : current) {
+                SELECTIONS
+                        .computeIfAbsent(fullName, key -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                        .add(icon);
+            }
+        }
+    }
+
+    /**
+     * Register the icon of a folder, removing the selection of the icon it replaces from the index.
+     *
+     * @param folder the folder
+     * @param icon   the icon of the folder (null if it does not use a {@link BuildStatusFolderIcon} anymore)
+     */
+    static void attachSelection(AbstractFolder<?> folder, BuildStatusFolderIcon icon) {
+        BuildStatusFolderIcon replaced;
+        synchronized (SELECTIONS) {
+            replaced = icon != null
+                    ? INDEXED_ICONS.put(folder.getFullName(), icon)
+                    : INDEXED_ICONS.remove(folder.getFullName());
+        }
+        // the replaced icon is locked on its own, outside of the index
+        if (replaced != null && replaced != icon) {
+            replaced.unindexSelection();
+        }
+    }
+
+    /**
+     * @param fullName the full name of a job
+     * @return the icons explicitly selecting the job, icons that have been replaced in the meantime are dropped.
+     */
+    static List<BuildStatusFolderIcon> getSelectingIcons(String fullName) {
+        List<BuildStatusFolderIcon> selecting;
+        synchronized (SELECTIONS) {
+            Set<BuildStatusFolderIcon> icons = SELECTIONS.get(fullName);
+            if (icons == null) {
+                return List.of();
+            }
+            selecting = new ArrayList<>(icons);
+        }
+        List<BuildStatusFolderIcon> attached = new ArrayList<>(selecting.size());
+        for (BuildStatusFolderIcon icon : selecting) {
+            if (icon.isAttached()) {
+                attached.add(icon);
+            } else {
+                icon.unindexSelection();
+            }
+        }
+        return attached;
+    }
+
+    /**
+     * Rewrite the selections of a renamed or moved item, so selected jobs stay selected.
+     *
+     * @param item        the renamed or moved item
+     * @param oldFullName the old full name
+     * @param newFullName the new full name
+     */
+    static void moveSelections(Item item, String oldFullName, String newFullName) {
+        if (item instanceof AbstractFolder<?>) {
+            synchronized (SELECTIONS) {
+                BuildStatusFolderIcon moved = INDEXED_ICONS.remove(oldFullName);
+                if (moved != null) {
+                    INDEXED_ICONS.put(newFullName, moved);
+                }
+            }
+        }
+        if (item instanceof AbstractFolder<?> folder && folder.getIcon() instanceof BuildStatusFolderIcon icon) {
+            // selections are relative to the folder, so they only have to be indexed by their new full names
+            icon.indexSelection();
+        }
+        if (item instanceof Job<?, ?>) {
+            for (BuildStatusFolderIcon icon : getSelectingIcons(oldFullName)) {
+                if (icon.moveSelection(oldFullName, newFullName)) {
+                    icon.saveOwner();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the selections of a deleted folder and of all folders within it from the index.
+     *
+     * @param folder the deleted folder
+     */
+    static void forgetSelections(AbstractFolder<?> folder) {
+        attachSelection(folder, null);
+        if (folder.getIcon() instanceof BuildStatusFolderIcon icon) {
+            icon.unindexSelection();
+        }
+        for (AbstractFolder<?> subfolder : Items.allItems2(ACL.SYSTEM2, folder, AbstractFolder.class)) {
+            attachSelection(subfolder, null);
+            if (subfolder.getIcon() instanceof BuildStatusFolderIcon icon) {
+                icon.unindexSelection();
+            }
+        }
+    }
+
+    /**
+     * Invalidate the combined build status of all folders containing the given item.
+     *
+     * @param item the changed item
+     */
+    static void invalidate(Item item) {
+        forEachIcon(item.getParent(), BuildStatusFolderIcon::invalidate);
+    }
+
+    /**
+     * Invalidate the resolved jobs and the combined build status of all folders containing the given item.
+     *
+     * @param item the created, moved or deleted item
+     */
+    static void invalidateJobs(Item item) {
+        boolean group = item instanceof ItemGroup<?>;
+        forEachIcon(item.getParent(), icon -> icon.invalidateJobs(item.getFullName(), group));
+    }
+
+    /**
+     * Invalidate the resolved jobs and the combined build status of all folders containing the given full name.
+     *
+     * @param fullName the full name of an item that might not exist anymore
+     * @param group    whether the item contains other items
+     */
+    static void invalidateJobs(String fullName, boolean group) {
+        int index = fullName.lastIndexOf('/');
+        if (index > 0) {
+            try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                Item parent = Jenkins.get().getItemByFullName(fullName.substring(0, index));
+                if (parent instanceof ItemGroup<?> parentGroup) {
+                    forEachIcon(parentGroup, icon -> icon.invalidateJobs(fullName, group));
+                }
+            }
+        }
+    }
+
+    /**
+     * Update the combined build status of all folders containing the given job for a changed job status.
+     *
+     * @param job    the job
+     * @param update the changed job status (null if it is unknown)
+     */
+    static void update(Job<?, ?> job, JobStatusStore.Update update) {
+        BuildStatusFolderIcon[] icons = getInterestedIcons(job.getParent());
+        JobStatusStore.Update resolved = update;
+        if (update != null && Arrays.stream(icons).anyMatch(BuildStatusFolderIcon::isHealthConsidered)) {
+            // only load the build records for the health score if a folder shows it
+            resolved = JobStatusStore.get().withHealth(job, update);
+        }
+        for (BuildStatusFolderIcon icon : icons) {
+            icon.onChanged(job, resolved);
+        }
+    }
+
+    /**
+     * Queue Listener to update the combined build status on queue events, so the queue is never iterated.
+     */
+    @Extension
+    @Restricted(NoExternalUse.class)
+    public static class BuildStatusQueueListener extends QueueListener {
+
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem wi) {
+            if (wi.task instanceof Job<?, ?> job) {
+                update(job, JobStatusStore.get().onQueueChanged(job, 1));
+            }
+        }
+
+        @Override
+        public void onLeft(Queue.LeftItem li) {
+            if (li.task instanceof Job<?, ?> job) {
+                update(job, JobStatusStore.get().onQueueChanged(job, -1));
+            }
+        }
+    }
+
+    /**
+     * Run Listener to update the combined build status on build events.
+     */
+    @Extension
+    @Restricted(NoExternalUse.class)
+    public static class BuildStatusRunListener extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onStarted(Run<?, ?> run, TaskListener listener) {
+            update(run.getParent(), JobStatusStore.get().onStarted(run));
+        }
+
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            update(run.getParent(), JobStatusStore.get().onCompleted(run));
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            JobStatusStore.get().onDeleted(run);
+            invalidate(run.getParent());
+        }
+    }
+
+    /**
+     * Item Listener to update the combined build status when items are created, changed, moved or deleted.
+     */
+    @Extension
+    @Restricted(NoExternalUse.class)
+    public static class BuildStatusItemListener extends ItemListener {
+
+        @Override
+        public void onCreated(Item item) {
+            invalidateJobs(item);
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            invalidateJobs(item);
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            invalidateJobs(item);
+            if (item instanceof AbstractFolder<?> folder) {
+                migrateSelection(folder);
+            }
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            JobStatusStore.get().onDeleted(item);
+            invalidateJobs(item);
+            if (item instanceof AbstractFolder<?> folder) {
+                forgetChanges(item.getFullName());
+                forgetSelections(folder);
+                forgetInterests(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            JobStatusStore.get().onLocationChanged(oldFullName, newFullName);
+            moveSelections(item, oldFullName, newFullName);
+            if (item instanceof AbstractFolder<?>) {
+                forgetChanges(oldFullName);
+                forgetInterests(oldFullName);
+                forgetInterests(newFullName);
+            }
+            invalidateJobs(oldFullName, item instanceof ItemGroup<?>);
+            invalidateJobs(item);
+        }
+    }
+
+    /**
+     * Saveable Listener to update the combined build status when a job is changed, e.g. disabled, and the index of
+     * interested icons when a folder is changed, e.g. its icon.
+     * <p>
+     * The job's display name might have been changed without any item event, so the jobs are resolved again as well.
+     */
+    @Extension
+    @Restricted(NoExternalUse.class)
+    public static class BuildStatusSaveableListener extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Jenkins || o instanceof AbstractFolder<?>) {
+                PERMISSIONS.incrementAndGet();
+            }
+            if (o instanceof Job<?, ?> job) {
+                invalidateJobs(job);
+            } else if (o instanceof AbstractFolder<?> folder) {
+                forgetInterests(folder.getFullName());
+                if (!(folder.getIcon() instanceof BuildStatusFolderIcon)) {
+                    // the icon might have been replaced by another kind of icon
+                    attachSelection(folder, null);
+                }
+                // the folder might have been loaded again, e.g. by reloading its configuration
+                migrateSelection(folder);
+            }
+        }
+    }
+}
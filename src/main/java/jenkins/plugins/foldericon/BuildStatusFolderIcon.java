@@ -5,121 +5,1285 @@ import com.cloudbees.hudson.plugins.folder.FolderIcon;
 import com.cloudbees.hudson.plugins.folder.FolderIconDescriptor;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
+import hudson.Util;
+import hudson.init.InitMilestone;
 import hudson.model.BallColor;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
 import hudson.model.Job;
 import hudson.model.Result;
-import hudson.model.Run;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.FormValidation;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+import org.kohsuke.stapler.verb.GET;
+import org.springframework.security.core.Authentication;
 
 /**
  * A Build Status Folder Icon.
  */
 public class BuildStatusFolderIcon extends FolderIcon {
 
-    private final Set<String> jobs;
+    private static final Logger LOGGER = Logger.getLogger(BuildStatusFolderIcon.class.getName());
+
+    /**
+     * The ball color shown while the combined build status is loaded by the page.
+     */
+    private static final BallColor PLACEHOLDER = BallColor.NOTBUILT_ANIME;
+
+    private static final String REQUEST_ATTRIBUTE = BuildStatusFolderIcon.class.getName() + ".statuses";
+
+    /**
+     * The format of the persisted selection, jobs are selected by their names relative to the folder since version 1.
+     */
+    private static final int SELECTION_VERSION = 1;
+
+    /**
+     * The strategy used if none is configured, it is stateless so it is shared by all icons.
+     */
+    private static final AggregationStrategy DEFAULT_STRATEGY = new WorstResultStrategy();
+
+    private Set<String> jobs;
+
+    private int selectionVersion;
+
+    private String includes;
+
+    private String excludes;
+
+    private int depth;
+
+    private boolean sharedStatus;
+
+    private int maxAge;
+
+    private AggregationStrategy strategy;
 
     private AbstractFolder<?> owner;
 
+    private transient JobMatcher matcher;
+
+    private transient volatile BuildStatus status;
+
+    private transient Set<String> resolvedJobs;
+
+    private transient long generation;
+
+    private transient long computedUntil;
+
+    private transient long computedSince;
+
+    private transient volatile List<AvailableJob> availableJobs;
+
+    private transient long availableJobsGeneration;
+
+    private transient boolean restored;
+
+    private transient volatile BuildStatus lastKnown;
+
+    private transient boolean updateScheduled;
+
+    private transient String notifiedIconClassName;
+
+    private transient Map<String, UserStatus> userStatuses;
+
+    @SuppressWarnings("rawtypes")
+    private transient Map<String, List<Job>> hiddenJobs;
+
+    private transient long hiddenJobsPermissions;
+
+    private transient String indexedFolder;
+
+    private transient Set<String> indexedJobs;
+
+    private transient Set<String> reportedNames;
+
     /**
      * Ctor.
      *
-     * @param jobs the jobs to consider for combined build status (null / empty means all jobs).
+     * @param jobs the names of the jobs relative to the folder to consider for combined build status (null / empty
+     *             means all jobs).
      */
     @DataBoundConstructor
     public BuildStatusFolderIcon(Set<String> jobs) {
         this.jobs = jobs;
+        this.selectionVersion = SELECTION_VERSION;
     }
 
     @Override
     protected void setOwner(AbstractFolder<?> folder) {
         this.owner = folder;
+        resetMatcher();
+        restoreStatus();
+        indexSelection();
+        BuildStatusEngine.attachSelection(folder, this);
     }
 
     /**
-     * @return the jobs to consider for combined build status (null / empty means all jobs).
+     * Use the status persisted before the last restart until it has been reconciled.
+     */
+    private synchronized void restoreStatus() {
+        BuildStatus snapshot = BuildStatusSnapshot.get().restore(owner.getFullName(), getFingerprint());
+        if (snapshot != null) {
+            status = snapshot;
+            lastKnown = snapshot;
+            notifiedIconClassName = getIconClassName(snapshot);
+            restored = true;
+        }
+    }
+
+    /**
+     * @return a fingerprint of the configured jobs, so a persisted status is not used for a different configuration.
+     */
+    int getFingerprint() {
+        return Objects.hash(jobs, includes, excludes, depth, maxAge);
+    }
+
+    /**
+     * @return the names of the jobs relative to the folder to consider for combined build status (null / empty means
+     * all jobs).
      */
     public Set<String> getJobs() {
         return jobs;
     }
 
+    /**
+     * @return whether this icon is still the icon of its folder.
+     */
+    boolean isAttached() {
+        return owner != null && owner.getIcon() == this;
+    }
+
+    /**
+     * Index the explicitly selected jobs by their full names, e.g. because the folder has been moved, so renamed or
+     * moved jobs find the icons selecting them.
+     */
+    synchronized void indexSelection() {
+        Set<String> selected = new LinkedHashSet<>();
+        if (owner != null && jobs != null) {
+            String prefix = owner.getFullName() + "/";
+            for (String name : jobs) {
+                selected.add(prefix + name);
+            }
+        }
+        BuildStatusEngine.indexSelection(this, indexedJobs, selected);
+        indexedFolder = owner != null ? owner.getFullName() : null;
+        indexedJobs = selected;
+    }
+
+    /**
+     * @return whether the explicitly selected jobs of this icon are indexed.
+     */
+    synchronized boolean isIndexed() {
+        return indexedJobs != null;
+    }
+
+    /**
+     * Remove the explicitly selected jobs from the index, e.g. because the folder has been deleted.
+     */
+    synchronized void unindexSelection() {
+        BuildStatusEngine.indexSelection(this, indexedJobs, Set.of());
+        indexedFolder = null;
+        indexedJobs = null;
+    }
+
+    /**
+     * Rewrite the selection of a renamed or moved job.
+     * <p>
+     * A job moved out of the folder stays selected, so it is considered again once it has been moved back.
+     *
+     * @param oldFullName the old full name of the job
+     * @param newFullName the new full name of the job
+     * @return whether the selection has been changed and has to be saved.
+     */
+    synchronized boolean moveSelection(String oldFullName, String newFullName) {
+        if (owner == null || indexedFolder == null || jobs == null || !oldFullName.startsWith(indexedFolder + "/")) {
+            return false;
+        }
+        String oldName = oldFullName.substring(indexedFolder.length() + 1);
+        String prefix = owner.getFullName() + "/";
+        if (!jobs.contains(oldName) || !newFullName.startsWith(prefix)) {
+            return false;
+        }
+
+        String newName = newFullName.substring(prefix.length());
+        if (oldName.equals(newName)) {
+            // the folder itself has been moved along with the job
+            indexSelection();
+            return false;
+        }
+        Set<String> renamed = new LinkedHashSet<>();
+        for (String name : jobs) {
+            renamed.add(name.equals(oldName) ? newName : name);
+        }
+        jobs = renamed;
+        resetMatcher();
+        indexSelection();
+        return true;
+    }
+
+    /**
+     * Persist the configuration of the folder, e.g. because its selection has been rewritten.
+     */
+    void saveOwner() {
+        try {
+            owner.save();
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, ex, () -> "Unable to save " + owner.getFullName() + "!");
+        }
+    }
+
+    /**
+     * Rewrite jobs selected by their relative display name, as persisted by previous versions, to their relative
+     * names once, so they can be found without building the display names of all jobs again.
+     * <p>
+     * Only selections that look like display names, i.e. contain {@code " » "} or do not resolve as a relative name,
+     * are searched for. The folder's jobs have to be loaded already, so this is never done while the status is
+     * computed.
+     *
+     * @return whether the configuration has to be saved, because the jobs have been searched by their display names.
+     */
+    @SuppressWarnings("rawtypes")
+    boolean migrateSelection() {
+        Set<String> names;
+        synchronized (this) {
+            if (selectionVersion >= SELECTION_VERSION || owner == null) {
+                return false;
+            }
+            selectionVersion = SELECTION_VERSION;
+            names = jobs;
+        }
+        if (names == null || names.isEmpty()) {
+            return false;
+        }
+
+        String prefix = owner.getFullName() + "/";
+        Jenkins jenkins = Jenkins.get();
+        Set<String> legacy = names.stream()
+                .filter(name -> name.contains(" » ") || jenkins.getItemByFullName(prefix + name, Job.class) == null)
+                .collect(Collectors.toSet());
+        if (legacy.isEmpty()) {
+            return false;
+        }
+        Map<String, String> migrated = new HashMap<>();
+        for (Job job : owner.getAllJobs()) {
+            String displayName = job.getRelativeDisplayNameFrom(owner);
+            if (legacy.contains(displayName)) {
+                migrated.putIfAbsent(displayName, job.getRelativeNameFrom(owner));
+            }
+        }
+
+        synchronized (this) {
+            // the selection might have been changed in the meantime
+            if (!migrated.isEmpty() && jobs == names) {
+                Set<String> renamed = new LinkedHashSet<>();
+                for (String name : names) {
+                    renamed.add(migrated.getOrDefault(name, name));
+                }
+                jobs = renamed;
+                resetMatcher();
+                indexSelection();
+                LOGGER.log(Level.FINE, () -> "Migrated selected jobs of " + owner.getFullName() + ": " + migrated);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the patterns of jobs to consider for combined build status, one per line (null / empty means all jobs).
+     */
+    public String getIncludes() {
+        return includes;
+    }
+
+    /**
+     * @param includes the patterns of jobs to consider for combined build status, one per line, matching the display
+     *                 names of the jobs relative to the folder (e.g. {@code Sub » release/*}).
+     */
+    @DataBoundSetter
+    public void setIncludes(String includes) {
+        this.includes = Util.fixEmptyAndTrim(includes);
+        resetMatcher();
+    }
+
+    /**
+     * @return the patterns of jobs to ignore for combined build status, one per line.
+     */
+    public String getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * @param excludes the patterns of jobs to ignore for combined build status, one per line.
+     */
+    @DataBoundSetter
+    public void setExcludes(String excludes) {
+        this.excludes = Util.fixEmptyAndTrim(excludes);
+        resetMatcher();
+    }
+
+    /**
+     * @return the number of folder levels to consider jobs from (0 means unlimited, 1 only the folder itself).
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @param depth the number of folder levels to consider jobs from (0 means unlimited, 1 only the folder itself).
+     */
+    @DataBoundSetter
+    public void setDepth(int depth) {
+        this.depth = Math.max(0, depth);
+        resetMatcher();
+    }
+
+    /**
+     * @return the number of days the last build of a job has to be completed within to be considered (0 means all
+     * jobs).
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * @param maxAge the number of days the last build of a job has to be completed within to be considered (0 means
+     *               all jobs).
+     */
+    @DataBoundSetter
+    public void setMaxAge(int maxAge) {
+        this.maxAge = Math.max(0, maxAge);
+        resetMatcher();
+    }
+
+    /**
+     * @return the time in milliseconds the last build of a job has to be completed since to be considered (0 for all
+     * jobs).
+     */
+    private long getSince() {
+        return maxAge > 0 ? System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAge) : 0L;
+    }
+
+    /**
+     * @return whether every user sees the combined build status of all jobs, instead of the combined build status of
+     * the jobs they are permitted to see.
+     */
+    public boolean isSharedStatus() {
+        return sharedStatus;
+    }
+
+    /**
+     * @param sharedStatus whether every user sees the combined build status of all jobs.
+     */
+    @DataBoundSetter
+    public void setSharedStatus(boolean sharedStatus) {
+        this.sharedStatus = sharedStatus;
+    }
+
+    /**
+     * Check whether the health scores of the jobs are counted by the combined build status. Computing a health score
+     * might load build records, so this is only done for icons showing it.
+     *
+     * @return whether the health scores of the jobs are counted
+     */
+    boolean isHealthConsidered() {
+        return false;
+    }
+
+    /**
+     * @return the strategy determining the combined result of the jobs.
+     */
+    public AggregationStrategy getStrategy() {
+        return strategy != null ? strategy : DEFAULT_STRATEGY;
+    }
+
+    /**
+     * @param strategy the strategy determining the combined result of the jobs (null for the worst result).
+     */
+    @DataBoundSetter
+    public void setStrategy(AggregationStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * @param levels the number of folder levels between the folder and an item, 1 for items directly within it.
+     * @return whether items at the given level are considered for the combined build status.
+     */
+    boolean isWithinDepth(int levels) {
+        return depth == 0 || levels <= depth;
+    }
+
+    /**
+     * @return the matcher selecting the jobs to consider, compiled once per folder.
+     */
+    private synchronized JobMatcher getMatcher() {
+        if (matcher == null) {
+            matcher = new JobMatcher(jobs, includes, excludes);
+        }
+        return matcher;
+    }
+
+    private synchronized void resetMatcher() {
+        matcher = null;
+        invalidateJobs();
+        if (owner != null) {
+            // the depth might have been changed, or this icon has just been set
+            BuildStatusEngine.forgetInterests(owner.getFullName());
+        }
+    }
+
     /**
      * @return all available jobs in the current folder.
      */
     public Set<String> getAvailableJobs() {
-        return getAllJobs().stream()
-                .map(job -> job.getRelativeDisplayNameFrom(owner))
-                .collect(Collectors.toCollection(TreeSet::new));
+        Jenkins jenkins = Jenkins.get();
+        return getAvailableJobEntries().stream()
+                .filter(job -> jenkins.getItemByFullName(job.fullName(), Job.class) != null)
+                .map(AvailableJob::name)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
+    /**
+     * Get the available jobs of the folder sorted by name, listed once until jobs are created, changed, moved or
+     * deleted.
+     * <p>
+     * The listing contains all jobs regardless of the current user's permissions, so it can be shared.
+     *
+     * @return all available jobs in the current folder.
+     */
+    List<AvailableJob> getAvailableJobEntries() {
+        List<AvailableJob> current = availableJobs;
+        if (current != null) {
+            return current;
+        }
+
+        long expected;
+        synchronized (this) {
+            expected = availableJobsGeneration;
+        }
+        current = listAvailableJobs(owner);
+        synchronized (this) {
+            // only cache the listing if no event invalidated it in the meantime
+            if (availableJobsGeneration == expected) {
+                availableJobs = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * @param folder the folder (may be null)
+     * @return all available jobs in the given folder sorted by name.
+     */
+    static List<AvailableJob> listAvailableJobs(AbstractFolder<?> folder) {
+        if (folder == null) {
+            return List.of();
+        }
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            return folder.getAllJobs().stream()
+                    .map(job -> new AvailableJob(
+                            job.getRelativeNameFrom(folder), job.getRelativeDisplayNameFrom(folder), job.getFullName()))
+                    .sorted(Comparator.comparing(AvailableJob::name))
+                    .toList();
+        }
+    }
+
+    /**
+     * An available job.
+     *
+     * @param name        the name relative to the folder
+     * @param displayName the display name relative to the folder
+     * @param fullName    the full name
+     */
+    record AvailableJob(String name, String displayName, String fullName) {}
+
     @SuppressWarnings("rawtypes")
     private Collection<? extends Job> getAllJobs() {
-        if (owner != null) {
+        if (owner == null) {
+            return Set.of();
+        } else if (depth == 0) {
             return owner.getAllJobs();
         } else {
-            return Set.of();
+            List<Job> found = new ArrayList<>();
+            collectJobs(owner, depth, found);
+            return found;
+        }
+    }
+
+    /**
+     * Collect the jobs within a limited number of folder levels, deeper folders are not traversed at all.
+     *
+     * @param folder the folder
+     * @param levels the number of folder levels to collect jobs from (at least 1)
+     * @param found  the collected jobs
+     */
+    @SuppressWarnings("rawtypes")
+    private static void collectJobs(AbstractFolder<?> folder, int levels, List<Job> found) {
+        for (Item item : folder.getItems()) {
+            if (item instanceof AbstractFolder<?> subfolder) {
+                if (levels > 1) {
+                    collectJobs(subfolder, levels - 1, found);
+                }
+            } else {
+                found.addAll(item.getAllJobs());
+            }
+        }
+    }
+
+    /**
+     * Resolve the configured jobs to the full names of the existing jobs.
+     * <p>
+     * Without patterns, the selected jobs are looked up by their full names instead of matching all jobs.
+     *
+     * @return the full names of the configured jobs that exist
+     */
+    private Set<String> resolveJobs() {
+        JobMatcher configuredJobs = getMatcher();
+        if (!configuredJobs.hasPatterns()) {
+            return findSelectedJobs(configuredJobs.getNames());
         }
+        return getAllJobs().stream()
+                .filter(job -> configuredJobs.matches(job, owner))
+                .map(Item::getFullName)
+                .collect(Collectors.toUnmodifiableSet());
     }
 
+    /**
+     * Find the selected jobs by their names relative to the folder.
+     * <p>
+     * Names that do not resolve are searched for by their relative display names once per resolution, because
+     * selections created by Job DSL, configuration as code or scripts might still use display names.
+     *
+     * @param names the names of the selected jobs relative to the folder
+     * @return the full names of the selected jobs that exist within the considered folder levels
+     */
     @SuppressWarnings("rawtypes")
-    private Collection<? extends Job> getConfiguredJobs() {
-        Collection<? extends Job> availableJobs = getAllJobs();
-        Collection<? extends Job> filteredJobs = new HashSet<>();
-        Set<String> configuredJobs = getJobs();
+    private Set<String> findSelectedJobs(Set<String> names) {
+        Jenkins jenkins = Jenkins.get();
+        String prefix = owner.getFullName() + "/";
+        Set<String> found = new HashSet<>();
+        Set<String> unresolved = new HashSet<>();
+        for (String name : names) {
+            Job<?, ?> job = jenkins.getItemByFullName(prefix + name, Job.class);
+            if (job == null) {
+                unresolved.add(name);
+            } else if (depth == 0 || isWithinDepth(getLevels(job))) {
+                found.add(job.getFullName());
+            }
+        }
 
-        if (configuredJobs != null) {
-            // filter jobs that exist and are configured
-            filteredJobs = availableJobs.stream()
-                    .filter(job -> configuredJobs.contains(job.getRelativeDisplayNameFrom(owner)))
-                    .collect(Collectors.toSet());
+        if (!unresolved.isEmpty()) {
+            Set<String> byDisplayName = new HashSet<>();
+            for (Job job : getAllJobs()) {
+                String displayName = job.getRelativeDisplayNameFrom(owner);
+                if (unresolved.contains(displayName)) {
+                    byDisplayName.add(displayName);
+                    found.add(job.getFullName());
+                }
+            }
+            synchronized (this) {
+                // only warn once about the same selection
+                if (!byDisplayName.isEmpty() && !byDisplayName.equals(reportedNames)) {
+                    reportedNames = byDisplayName;
+                    LOGGER.log(
+                            Level.WARNING,
+                            () -> "Jobs of " + owner.getFullName() + " are selected by their display names "
+                                    + byDisplayName + ", select them by their names relative to the folder instead!");
+                }
+            }
         }
+        return Set.copyOf(found);
+    }
 
-        // if a filtered result is empty, return all available instead
-        return filteredJobs.isEmpty() ? availableJobs : filteredJobs;
+    /**
+     * @param item an item within the folder
+     * @return the number of folder levels between the folder and the item, 1 for items directly within it.
+     */
+    private int getLevels(Item item) {
+        int levels = 1;
+        ItemGroup<?> group = item.getParent();
+        while (group != owner && group instanceof Item parent) {
+            if (group instanceof AbstractFolder<?>) {
+                levels++;
+            }
+            group = parent.getParent();
+        }
+        return levels;
     }
 
-    private BallColor getCombinedBallColor() {
-        var configuredJobs = getConfiguredJobs();
-
-        Result combinedResult = null;
-        boolean buildable = false;
-        boolean running = false;
-        boolean empty = configuredJobs.isEmpty();
-
-        for (var job : configuredJobs) {
-            if (job.isBuildable()) {
-                buildable = true;
-                Run<?, ?> build = job.getLastBuild();
-                if (build != null && build.isBuilding()) {
-                    running = true;
-                    build = build.getPreviousBuild();
+    @SuppressWarnings("rawtypes")
+    private static List<Job> getConfiguredJobs(Set<String> fullNames) {
+        Jenkins jenkins = Jenkins.get();
+        List<Job> configuredJobs = new ArrayList<>(fullNames.size());
+        for (String fullName : fullNames) {
+            Job job = jenkins.getItemByFullName(fullName, Job.class);
+            if (job != null) {
+                configuredJobs.add(job);
+            }
+        }
+        return configuredJobs;
+    }
+
+    /**
+     * Get the cached combined build status, computing it if there is none yet.
+     *
+     * @return the combined build status
+     */
+    BuildStatus getStatus() {
+        BuildStatus current = getValidStatus();
+        if (current != null) {
+            return current;
+        }
+        return BuildStatusEngine.computeOnce(getComputationKey(), this::refresh);
+    }
+
+    /**
+     * Get the cached combined build status, computing it within the given time budget if there is none yet.
+     * <p>
+     * If the computation takes longer, it is finished in the background and the last known status is returned, marked
+     * as stale. The last known status is returned as well while a recomputation is scheduled, so a burst of events
+     * does not recompute the status on every access. Without any known status, this waits until the computation is
+     * done.
+     *
+     * @param budget the time budget in milliseconds (0 to wait until the computation is done)
+     * @return the combined build status
+     */
+    BuildStatus getStatus(long budget) {
+        BuildStatus current = getValidStatus();
+        if (current != null) {
+            return current;
+        }
+
+        BuildStatus last = lastKnown;
+        if (last == null || owner == null || budget <= 0) {
+            return getStatus();
+        }
+        synchronized (this) {
+            if (updateScheduled) {
+                return last.withStale();
+            }
+        }
+
+        try {
+            return BuildStatusEngine.computeOnceAsync(getComputationKey(), this::refresh)
+                    .get(budget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            return last.withStale();
+        } catch (ExecutionException ex) {
+            LOGGER.log(Level.WARNING, ex, () -> "Unable to compute build status of " + owner.getFullName() + "!");
+            return last.withStale();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return last.withStale();
+        }
+    }
+
+    /**
+     * @return the key of computations of the current generation of the combined build status, concurrent requests
+     * share a single computation while computations started before an invalidation are not reused.
+     */
+    private synchronized Computation getComputationKey() {
+        return new Computation(this, generation);
+    }
+
+    /**
+     * The key of a computation of the combined build status.
+     *
+     * @param icon       the icon
+     * @param generation the generation of the status
+     */
+    private record Computation(BuildStatusFolderIcon icon, long generation) {}
+
+    /**
+     * Get the cached combined build status, unless jobs considered for it might have left the time window since it
+     * has been computed.
+     *
+     * @return the cached combined build status or null if there is none.
+     */
+    private BuildStatus getValidStatus() {
+        BuildStatus current = status;
+        if (current != null && maxAge > 0 && current.getOldestCompleted() < getSince()) {
+            synchronized (this) {
+                if (status == current) {
+                    invalidate();
                 }
-                Result result = build != null ? build.getResult() : null;
-                combinedResult = Result.combine(combinedResult, result);
             }
+            return null;
         }
+        return current;
+    }
 
-        BallColor color;
-        if (combinedResult != null) {
-            color = combinedResult.color;
-        } else if (empty || buildable) {
-            color = BallColor.NOTBUILT;
-        } else {
-            color = BallColor.DISABLED;
+    /**
+     * @return the cached combined build status or null if there is none.
+     */
+    BuildStatus getCachedStatus() {
+        return status;
+    }
+
+    /**
+     * Recompute a status restored from the snapshot, it is kept in the meantime.
+     */
+    void reconcile() {
+        synchronized (this) {
+            if (!restored) {
+                return;
+            }
+        }
+        BuildStatusEngine.computeOnce(getComputationKey(), this::refresh);
+    }
+
+    /**
+     * Compute the combined build status and cache it, unless it has been invalidated in the meantime.
+     *
+     * @return the combined build status
+     */
+    private BuildStatus refresh() {
+        BuildStatusEngine.recordRecomputation();
+        long expected;
+        Set<String> resolved;
+        synchronized (this) {
+            expected = generation;
+            resolved = resolvedJobs;
+        }
+
+        // the status is shared by all users, so compute it independent of the current user's permissions
+        long since = getSince();
+        BuildStatus computed;
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            if (owner == null) {
+                computed = BuildStatus.EMPTY;
+            } else {
+                if (resolved == null) {
+                    resolved = isUnfiltered() ? Set.of() : resolveJobs();
+                }
+                // if none of the configured jobs exists, consider all jobs instead
+                computed = resolved.isEmpty()
+                        ? computeStatus(owner, depth, maxAge, since, isHealthConsidered())
+                        : BuildStatusEngine.aggregate(getConfiguredJobs(resolved), since, isHealthConsidered());
+            }
+        }
+
+        // job status changes from here on might not be included in the computed status
+        long until = JobStatusStore.get().getVersion();
+
+        synchronized (this) {
+            // a status finished in the background might differ from the one already pushed to clients
+            notifyChanged(computed);
+            lastKnown = computed;
+            // only cache the result if no event invalidated it in the meantime
+            if (generation == expected) {
+                status = computed;
+                resolvedJobs = resolved;
+                computedUntil = until;
+                computedSince = since;
+                restored = false;
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * @return whether all jobs within the folder are considered for the combined build status.
+     */
+    private boolean isUnfiltered() {
+        return getMatcher().isEmpty();
+    }
+
+    /**
+     * Compute the combined build status of all jobs within a folder.
+     * <p>
+     * Subfolders using an unfiltered {@link BuildStatusFolderIcon} of the remaining depth and the same time window
+     * already cache the combined build status of all their jobs, so their status is reused instead of scanning their
+     * jobs again.
+     *
+     * @param folder the folder
+     * @param levels the number of folder levels to consider (0 means unlimited)
+     * @param maxAge the number of days the last build of a job has to be completed within (0 means all jobs)
+     * @param since  the time in milliseconds the last build of a job has to be completed since (0 for all jobs)
+     * @param health whether the health scores of the jobs are counted
+     * @return the combined build status
+     */
+    @SuppressWarnings("rawtypes")
+    private static BuildStatus computeStatus(
+            AbstractFolder<?> folder, int levels, int maxAge, long since, boolean health) {
+        BuildStatus combined = BuildStatus.EMPTY;
+        List<Job> directJobs = new ArrayList<>();
+
+        for (Item item : folder.getItems()) {
+            if (item instanceof AbstractFolder<?> subfolder) {
+                if (levels == 1) {
+                    continue;
+                }
+                int remaining = levels == 0 ? 0 : levels - 1;
+                if (subfolder.getIcon() instanceof BuildStatusFolderIcon icon
+                        && icon.isUnfiltered()
+                        && icon.getDepth() == remaining
+                        && icon.getMaxAge() == maxAge
+                        && (!health || icon.isHealthConsidered())) {
+                    combined = combined.combine(icon.getStatus());
+                } else {
+                    combined = combined.combine(computeStatus(subfolder, remaining, maxAge, since, health));
+                }
+            } else {
+                directJobs.addAll(item.getAllJobs());
+            }
         }
 
-        return running ? color.anime() : color;
+        return combined.combine(BuildStatusEngine.aggregate(directJobs, since, health));
+    }
+
+    /**
+     * Discard the cached combined build status, it will be recomputed on the next access.
+     */
+    synchronized void invalidate() {
+        generation++;
+        status = null;
+        restored = false;
+        scheduleUpdate();
+    }
+
+    /**
+     * Schedule the recomputation of the combined build status and the notification of clients about its change.
+     * <p>
+     * All events within the configured window are coalesced, so a burst of events causes a single recomputation.
+     */
+    private synchronized void scheduleUpdate() {
+        BuildStatusEngine.recordEvent();
+        if (owner == null || updateScheduled) {
+            return;
+        }
+
+        long window = BuildStatusEngine.DEBOUNCE_WINDOW;
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (window <= 0 || jenkins == null || jenkins.getInitLevel() != InitMilestone.COMPLETED) {
+            // folders are loaded during startup, the snapshot and its reconciliation take care of them
+            BuildStatusEngine.recordChange(owner);
+            return;
+        }
+
+        updateScheduled = true;
+        // the timer only triggers the update, the status is computed on the threads reserved for computations
+        Timer.get().schedule(() -> BuildStatusEngine.execute(this::update), window, TimeUnit.MILLISECONDS);
+    }
+
+    private void update() {
+        synchronized (this) {
+            updateScheduled = false;
+        }
+        try {
+            notifyChanged(getStatus());
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, ex, () -> "Unable to compute build status of " + owner.getFullName() + "!");
+            BuildStatusEngine.recordChange(owner);
+        }
+    }
+
+    /**
+     * Notify clients about a changed combined build status, unless its icon is the same as the one they have been
+     * notified about.
+     *
+     * @param current the current combined build status
+     */
+    private synchronized void notifyChanged(BuildStatus current) {
+        if (owner == null) {
+            return;
+        }
+        String iconClassName = getIconClassName(current);
+        if (!iconClassName.equals(notifiedIconClassName)) {
+            notifiedIconClassName = iconClassName;
+            BuildStatusEngine.recordChange(owner);
+        }
+    }
+
+    /**
+     * Discard the resolved configured jobs and the cached combined build status, e.g. because jobs have been created,
+     * moved or deleted.
+     */
+    synchronized void invalidateJobs() {
+        invalidate();
+        resolvedJobs = null;
+        availableJobs = null;
+        availableJobsGeneration++;
+        hiddenJobs = null;
+    }
+
+    /**
+     * Discard the resolved configured jobs and the cached combined build status because an item within the folder has
+     * been created, changed, moved or deleted.
+     *
+     * @param fullName the full name of the item
+     * @param group    whether the item contains other items
+     */
+    synchronized void invalidateJobs(String fullName, boolean group) {
+        if (matcher != null) {
+            if (group) {
+                matcher.reset();
+            } else {
+                matcher.forget(fullName);
+            }
+        }
+        invalidateJobs();
+    }
+
+    /**
+     * Update the cached combined build status for a changed job status without recomputing it.
+     * <p>
+     * If the cached status cannot be updated, e.g. because the previous status of the job is unknown, it is discarded
+     * instead.
+     *
+     * @param job    the job
+     * @param update the changed job status (null if it is unknown)
+     */
+    synchronized void onChanged(Job<?, ?> job, JobStatusStore.Update update) {
+        if (status == null
+                || resolvedJobs == null
+                || update == null
+                || update.previous() == null
+                || update.version() <= computedUntil
+                || !job.isBuildable()
+                || isHealthConsidered()
+                        && (update.previous().getHealth() == JobStatus.UNKNOWN_HEALTH
+                                || update.current().getHealth() == JobStatus.UNKNOWN_HEALTH)) {
+            // the change might already be included in the cached status, or cannot be applied to it
+            invalidate();
+        } else if (resolvedJobs.isEmpty() || resolvedJobs.contains(job.getFullName())) {
+            if (maxAge > 0 && update.previous().getCompleted() < computedSince) {
+                // the job has not been considered, unless one of its builds has completed since
+                if (update.current().getCompleted() != update.previous().getCompleted()) {
+                    invalidate();
+                }
+            } else {
+                applyChange(update);
+            }
+        }
+    }
+
+    /**
+     * Update the cached combined build status for a changed status of one of its considered jobs.
+     *
+     * @param update the changed job status
+     */
+    private synchronized void applyChange(JobStatusStore.Update update) {
+        generation++;
+        status = isHealthConsidered()
+                ? status.withChanged(update.previous(), update.current())
+                : status.withChanged(
+                        update.previous().withHealth(-1), update.current().withHealth(-1));
+        lastKnown = status;
+        scheduleUpdate();
+    }
+
+    /**
+     * Get the combined build status for the current user.
+     * <p>
+     * Users that cannot see every job get the shared status without the jobs hidden from them. The hidden jobs are
+     * cached per user until items or permissions change, while the derived status is cached per user until the shared
+     * status changes, unless the shared combined build status of all jobs is shown to every user. Listing the hidden
+     * jobs is limited by the same time budget as the shared status, falling back to the last status of the user.
+     *
+     * @param budget the time budget in milliseconds (0 to wait until the computation is done)
+     * @return the combined build status
+     */
+    @SuppressWarnings("rawtypes")
+    BuildStatus getVisibleStatus(long budget) {
+        long expected;
+        synchronized (this) {
+            expected = generation;
+        }
+        BuildStatus shared = getStatus(budget);
+        if (sharedStatus || owner == null) {
+            return shared;
+        }
+
+        // checked first, so administrators never check the permissions of any job
+        if (Jenkins.get().hasPermission(Jenkins.ADMINISTER)) {
+            return shared;
+        }
+
+        Authentication user = Jenkins.getAuthentication2();
+        long permissions = BuildStatusEngine.getPermissionsVersion();
+        UserStatus last;
+        List<Job> hidden;
+        synchronized (this) {
+            last = userStatuses != null ? userStatuses.get(user.getName()) : null;
+            if (last != null
+                    && last.generation() == expected
+                    && last.permissions() == permissions
+                    && !shared.isStale()) {
+                return last.status();
+            }
+            hidden = hiddenJobs != null && hiddenJobsPermissions == permissions ? hiddenJobs.get(user.getName()) : null;
+        }
+
+        BuildStatus computed =
+                hidden != null ? deriveStatus(shared, hidden) : computeVisibleStatus(shared, user, budget, last);
+
+        synchronized (this) {
+            // only cache the result if no event changed the status in the meantime and it is not outdated
+            if (generation == expected && !computed.isStale()) {
+                if (userStatuses == null) {
+                    userStatuses = new HashMap<>();
+                }
+                userStatuses.put(user.getName(), new UserStatus(expected, permissions, computed));
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * List the jobs hidden from a user and derive the user's status within the given time budget.
+     *
+     * @param shared the shared combined build status
+     * @param user   the user
+     * @param budget the time budget in milliseconds (0 to wait until the computation is done)
+     * @param last   the last status of the user or null if there is none
+     * @return the combined build status for the user
+     */
+    private BuildStatus computeVisibleStatus(BuildStatus shared, Authentication user, long budget, UserStatus last) {
+        HiddenJobsComputation key;
+        synchronized (this) {
+            key = new HiddenJobsComputation(
+                    this, user.getName(), availableJobsGeneration, BuildStatusEngine.getPermissionsVersion());
+        }
+        Supplier<BuildStatus> computation = () -> deriveStatus(shared, listHiddenJobs(user));
+        if (last == null || budget <= 0) {
+            return BuildStatusEngine.computeOnce(key, computation);
+        }
+
+        // never fall back to the shared status, it would disclose the hidden jobs
+        try {
+            return BuildStatusEngine.computeOnceAsync(key, computation).get(budget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            return last.status().withStale();
+        } catch (ExecutionException ex) {
+            LOGGER.log(
+                    Level.WARNING,
+                    ex,
+                    () -> "Unable to compute build status of " + owner.getFullName() + " for " + user.getName() + "!");
+            return last.status().withStale();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return last.status().withStale();
+        }
+    }
+
+    /**
+     * List the considered jobs a user is not permitted to see and cache them until items or permissions change.
+     *
+     * @param user the user
+     * @return the hidden jobs
+     */
+    @SuppressWarnings("rawtypes")
+    private List<Job> listHiddenJobs(Authentication user) {
+        long expected;
+        long permissions;
+        synchronized (this) {
+            expected = availableJobsGeneration;
+            permissions = BuildStatusEngine.getPermissionsVersion();
+        }
+
+        List<Job> hidden = new ArrayList<>();
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            for (Job job : getConsideredJobs()) {
+                if (!job.getACL().hasPermission2(user, Item.READ)) {
+                    hidden.add(job);
+                }
+            }
+        }
+
+        synchronized (this) {
+            // only cache the result if no item changed in the meantime
+            if (availableJobsGeneration == expected) {
+                if (hiddenJobs == null || hiddenJobsPermissions != permissions) {
+                    hiddenJobs = new HashMap<>();
+                    hiddenJobsPermissions = permissions;
+                }
+                hiddenJobs.put(user.getName(), hidden);
+            }
+        }
+        return hidden;
+    }
+
+    /**
+     * Derive the combined build status for a user from the shared one by removing the jobs hidden from the user.
+     *
+     * @param shared the shared combined build status
+     * @param hidden the hidden jobs
+     * @return the combined build status for the user
+     */
+    @SuppressWarnings("rawtypes")
+    private BuildStatus deriveStatus(BuildStatus shared, List<Job> hidden) {
+        if (hidden.isEmpty()) {
+            return shared;
+        }
+
+        long since;
+        synchronized (this) {
+            since = computedSince;
+        }
+        if (since == 0) {
+            since = getSince();
+        }
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            BuildStatus visible =
+                    shared.without(BuildStatusEngine.aggregateSequential(hidden, since, isHealthConsidered()));
+            if (visible != null) {
+                return visible;
+            }
+
+            // the last completed build is hidden, so the previous one is unknown without aggregating the visible jobs
+            Set<Job> excluded = Collections.newSetFromMap(new IdentityHashMap<>());
+            excluded.addAll(hidden);
+            List<Job> visibleJobs = getConsideredJobs();
+            visibleJobs.removeIf(excluded::contains);
+            BuildStatus computed = BuildStatusEngine.aggregate(visibleJobs, since, isHealthConsidered());
+            return shared.isStale() ? computed.withStale() : computed;
+        }
+    }
+
+    /**
+     * @return the jobs considered for the combined build status, must be called with the permissions of the system.
+     */
+    @SuppressWarnings("rawtypes")
+    private List<Job> getConsideredJobs() {
+        Set<String> resolved;
+        synchronized (this) {
+            resolved = resolvedJobs;
+        }
+        if (resolved == null) {
+            resolved = isUnfiltered() ? Set.of() : resolveJobs();
+        }
+        return resolved.isEmpty() ? new ArrayList<>(getAllJobs()) : getConfiguredJobs(resolved);
+    }
+
+    /**
+     * The combined build status of a user.
+     *
+     * @param generation  the generation of the shared status it has been derived from
+     * @param permissions the version of the permissions it has been derived with
+     * @param status      the combined build status
+     */
+    private record UserStatus(long generation, long permissions, BuildStatus status) {}
+
+    /**
+     * The key of a computation of the jobs hidden from a user.
+     *
+     * @param icon        the icon
+     * @param user        the name of the user
+     * @param generation  the generation of the available jobs
+     * @param permissions the version of the permissions
+     */
+    private record HiddenJobsComputation(BuildStatusFolderIcon icon, String user, long generation, long permissions) {}
+
+    /**
+     * Get the combined build status, computed at most once per HTTP request for each folder.
+     *
+     * @return the combined build status
+     */
+    BuildStatus getRequestStatus() {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        if (req == null || owner == null) {
+            return getVisibleStatus(BuildStatusEngine.COMPUTATION_BUDGET);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, BuildStatus> statuses = (Map<String, BuildStatus>) req.getAttribute(REQUEST_ATTRIBUTE);
+        if (statuses == null) {
+            statuses = new ConcurrentHashMap<>();
+            req.setAttribute(REQUEST_ATTRIBUTE, statuses);
+        }
+
+        String key = owner.getFullName();
+        BuildStatus cached = statuses.get(key);
+        if (cached != null) {
+            BuildStatusEngine.recordAvoidedRecomputation();
+            return cached;
+        }
+
+        BuildStatus computed = getVisibleStatus(BuildStatusEngine.COMPUTATION_BUDGET);
+        statuses.put(key, computed);
+        return computed;
+    }
+
+    /**
+     * Check whether the combined build status is loaded by the page once the folder is visible, instead of computing
+     * it while the page listing the folder is rendered.
+     *
+     * @return whether a placeholder is shown for now
+     */
+    boolean isDeferred() {
+        return BuildStatusAction.isDeferred(owner);
+    }
+
+    private BallColor getCombinedBallColor() {
+        return isDeferred() ? PLACEHOLDER : getBallColor(getRequestStatus());
+    }
+
+    /**
+     * @param combined the combined build status
+     * @return the combined result of the given status according to the configured strategy (null if there is none).
+     */
+    Result getResult(BuildStatus combined) {
+        return getStrategy().aggregate(combined);
+    }
+
+    /**
+     * @param combined the combined build status
+     * @return the ball color representing the combined result of the given status.
+     */
+    BallColor getBallColor(BuildStatus combined) {
+        return combined.getBallColor(getResult(combined));
     }
 
     @Override
     public String getIconClassName() {
-        return "symbol-status-" + getCombinedBallColor().getIconName();
+        if (isDeferred()) {
+            return "symbol-status-" + PLACEHOLDER.getIconName();
+        }
+        return getIconClassName(getRequestStatus());
+    }
+
+    /**
+     * @param combined the combined build status
+     * @return the icon class name of the symbol representing the given status.
+     */
+    String getIconClassName(BuildStatus combined) {
+        return combined.getIconClassName(getResult(combined));
     }
 
     @Override
@@ -130,10 +1294,37 @@ public class BuildStatusFolderIcon extends FolderIcon {
 
     @Override
     public String getDescription() {
+        if (isDeferred()) {
+            return describe(Messages.BuildStatusFolderIcon_loading());
+        }
+        BuildStatus combined = getRequestStatus();
+        String description = getBallColor(combined).getDescription();
+        if (!combined.isEmpty()) {
+            description += ", "
+                    + Messages.BuildStatusFolderIcon_failing(
+                            combined.getCount(Result.FAILURE), combined.getTotalCount());
+        }
+        if (combined.isRunning()) {
+            description += ", " + Messages.BuildStatusFolderIcon_running(combined.getRunningCount());
+        }
+        if (combined.isQueued()) {
+            description += ", " + Messages.BuildStatusFolderIcon_queued(combined.getQueuedCount());
+        }
+        if (combined.isStale()) {
+            description += ", " + Messages.BuildStatusFolderIcon_stale();
+        }
+        return describe(description);
+    }
+
+    /**
+     * @param description the description of the combined status
+     * @return the description of the folder including the given description of its combined status.
+     */
+    String describe(String description) {
         if (owner != null) {
-            return owner.getPronoun() + " (" + getCombinedBallColor().getDescription() + ")";
+            return owner.getPronoun() + " (" + description + ")";
         } else {
-            return Messages.Folder_description() + " (" + getCombinedBallColor().getDescription() + ")";
+            return Messages.Folder_description() + " (" + description + ")";
         }
     }
 
@@ -148,10 +1339,88 @@ public class BuildStatusFolderIcon extends FolderIcon {
     @Extension
     public static class DescriptorImpl extends FolderIconDescriptor {
 
+        /**
+         * Number of jobs returned by a single search.
+         */
+        static final int PAGE_SIZE = 50;
+
         @Override
         @NonNull
         public String getDisplayName() {
             return Messages.BuildStatusFolderIcon_description();
         }
+
+        /**
+         * Search the available jobs of a folder, one page at a time, so the configuration does not have to list all
+         * of them.
+         *
+         * @param folder the folder
+         * @param query  the text the job names or display names have to contain, ignoring case (may be empty)
+         * @param start  the index of the first matching job to return
+         * @return the matching jobs, their total number and the index of the next page (-1 if there is none)
+         */
+        @GET
+        public HttpResponse doSearchJobs(
+                @AncestorInPath AbstractFolder<?> folder, @QueryParameter String query, @QueryParameter int start) {
+            if (folder == null) {
+                return HttpResponses.notFound();
+            }
+            folder.checkPermission(Item.CONFIGURE);
+
+            // reuse the listing of the current icon, another icon might be configured right now though
+            List<AvailableJob> available = folder.getIcon() instanceof BuildStatusFolderIcon icon
+                    ? icon.getAvailableJobEntries()
+                    : listAvailableJobs(folder);
+
+            String text = Util.fixEmptyAndTrim(query);
+            String lowerCaseText = text != null ? text.toLowerCase(Locale.ROOT) : null;
+            int from = Math.max(0, start);
+            Jenkins jenkins = Jenkins.get();
+            List<String> jobs = new ArrayList<>();
+            int total = 0;
+            for (AvailableJob job : available) {
+                if ((lowerCaseText == null
+                                || job.name().toLowerCase(Locale.ROOT).contains(lowerCaseText)
+                                || job.displayName().toLowerCase(Locale.ROOT).contains(lowerCaseText))
+                        && jenkins.getItemByFullName(job.fullName(), Job.class) != null) {
+                    if (total >= from && jobs.size() < PAGE_SIZE) {
+                        jobs.add(job.name());
+                    }
+                    total++;
+                }
+            }
+
+            int next = from + jobs.size();
+            return HttpResponses.okJSON(new JSONObject()
+                    .element("jobs", JSONArray.fromObject(jobs))
+                    .element("total", total)
+                    .element("next", next < total ? next : -1));
+        }
+
+        @RequirePOST
+        public FormValidation doCheckIncludes(@AncestorInPath Item item, @QueryParameter String value) {
+            return checkPatterns(item, value);
+        }
+
+        @RequirePOST
+        public FormValidation doCheckExcludes(@AncestorInPath Item item, @QueryParameter String value) {
+            return checkPatterns(item, value);
+        }
+
+        private static FormValidation checkPatterns(Item item, String value) {
+            if (item != null) {
+                item.checkPermission(Item.CONFIGURE);
+            } else {
+                Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            }
+            for (String pattern : JobMatcher.split(value)) {
+                try {
+                    JobMatcher.compile(pattern);
+                } catch (PatternSyntaxException ex) {
+                    return FormValidation.error(Messages.Selection_invalidPattern(pattern, ex.getDescription()));
+                }
+            }
+            return FormValidation.ok();
+        }
     }
 }
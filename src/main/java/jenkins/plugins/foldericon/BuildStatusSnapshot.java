@@ -0,0 +1,252 @@
+package jenkins.plugins.foldericon;
+
+import com.cloudbees.hudson.plugins.folder.AbstractFolder;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.model.PeriodicWork;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.AtomicFileWriter;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Persists the combined build status of all {@link BuildStatusFolderIcon}s, so the icons are correct right after a
+ * restart instead of all being computed on their first view.
+ * <p>
+ * The snapshot is loaded when the folders are loaded, each folder consumes its own status once. When all jobs have been
+ * loaded, the restored statuses are reconciled in the background, from the innermost folders outwards.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class BuildStatusSnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildStatusSnapshot.class.getName());
+
+    private static final String HEADER =
+            "# fingerprint\tjobs by result\tdisabled\ttotal\tjobs by health\thealth sum\toldest completed\tfull name";
+
+    private final Map<String, Entry> restored = new ConcurrentHashMap<>();
+
+    /**
+     * Ctor.
+     */
+    public BuildStatusSnapshot() {
+        load();
+    }
+
+    /**
+     * @return the singleton instance
+     */
+    static BuildStatusSnapshot get() {
+        return ExtensionList.lookupSingleton(BuildStatusSnapshot.class);
+    }
+
+    /**
+     * Take the restored status of a folder, it is only returned once.
+     *
+     * @param fullName    the full name of the folder
+     * @param fingerprint the fingerprint of the icon's configuration
+     * @return the restored status or null if there is none for the current configuration.
+     */
+    BuildStatus restore(String fullName, int fingerprint) {
+        Entry entry = restored.remove(fullName);
+        return entry != null && entry.fingerprint == fingerprint ? entry.status : null;
+    }
+
+    /**
+     * @return the number of restored statuses that have not been taken yet.
+     */
+    int size() {
+        return restored.size();
+    }
+
+    private static File getFile() {
+        return new File(Jenkins.get().getRootDir(), BuildStatusSnapshot.class.getName() + ".txt");
+    }
+
+    /**
+     * Load the persisted statuses.
+     */
+    private void load() {
+        File file = getFile();
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                // statuses persisted without health or the oldest completed build are computed again when needed
+                String[] fields = line.split("\t", 8);
+                if (fields.length == 8) {
+                    try {
+                        int fingerprint = Integer.parseInt(fields[0]);
+                        int[] results = parseCounters(fields[1], BuildStatus.newCounters());
+                        int[] health = parseCounters(fields[4], BuildStatus.newHealthCounters());
+                        if (results != null && health != null) {
+                            // running builds might not survive a restart, reconciliation will find the ones that did
+                            BuildStatus status = new BuildStatus(
+                                            results, 0, Integer.parseInt(fields[2]), Integer.parseInt(fields[3]))
+                                    .withHealth(health, Long.parseLong(fields[5]))
+                                    .withOldestCompleted(Long.parseLong(fields[6]));
+                            restored.put(fields[7], new Entry(fingerprint, status));
+                        }
+                    } catch (NumberFormatException ex) {
+                        LOGGER.log(Level.FINE, ex, () -> "Ignoring invalid folder status in " + file);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, ex, () -> "Unable to load folder statuses from " + file + "!");
+        }
+    }
+
+    private static int[] parseCounters(String field, int[] counters) {
+        String[] counts = field.split(",");
+        if (counts.length != counters.length) {
+            return null;
+        }
+        for (int index = 0; index < counters.length; index++) {
+            counters[index] = Integer.parseInt(counts[index]);
+        }
+        return counters;
+    }
+
+    private static void appendCounters(StringBuilder line, int[] counters) {
+        for (int index = 0; index < counters.length; index++) {
+            line.append(index > 0 ? "," : "").append(counters[index]);
+        }
+    }
+
+    /**
+     * Persist the cached statuses of all folders, folders without a cached status are skipped.
+     */
+    synchronized void save() {
+        File file = getFile();
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+            try {
+                writer.write(HEADER + "\n");
+                StringBuilder line = new StringBuilder();
+                for (AbstractFolder<?> folder : Jenkins.get().allItems(AbstractFolder.class)) {
+                    if (folder.getIcon() instanceof BuildStatusFolderIcon icon) {
+                        BuildStatus status = icon.getCachedStatus();
+                        if (status != null) {
+                            line.setLength(0);
+                            line.append(icon.getFingerprint()).append('\t');
+                            appendCounters(line, status.getCounts());
+                            line.append('\t')
+                                    .append(status.getDisabledCount())
+                                    .append('\t')
+                                    .append(status.getTotalCount())
+                                    .append('\t');
+                            appendCounters(line, status.getHealthCounts());
+                            line.append('\t')
+                                    .append(status.getHealthSum())
+                                    .append('\t')
+                                    .append(status.getOldestCompleted())
+                                    .append('\t')
+                                    .append(folder.getFullName())
+                                    .append('\n');
+                            writer.write(line.toString());
+                        }
+                    }
+                }
+                writer.commit();
+            } finally {
+                writer.abort();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, ex, () -> "Unable to save folder statuses to " + file + "!");
+        }
+    }
+
+    /**
+     * Recompute the restored statuses of all folders, innermost folders first so their parents can reuse them.
+     * <p>
+     * Job statuses of jobs that have been removed while the controller was down are discarded as well.
+     */
+    void reconcile() {
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            List<AbstractFolder<?>> folders = new ArrayList<>();
+            for (AbstractFolder<?> folder : Jenkins.get().allItems(AbstractFolder.class)) {
+                if (folder.getIcon() instanceof BuildStatusFolderIcon) {
+                    folders.add(folder);
+                }
+            }
+            folders.sort(Comparator.comparingInt(
+                            (AbstractFolder<?> folder) -> folder.getFullName().split("/").length)
+                    .reversed());
+            for (AbstractFolder<?> folder : folders) {
+                if (folder.getIcon() instanceof BuildStatusFolderIcon icon) {
+                    icon.reconcile();
+                }
+            }
+            // statuses of folders that no longer exist or no longer use this icon are never taken
+            restored.clear();
+            JobStatusStore.get().prune();
+        }
+    }
+
+    /**
+     * Reconcile the restored statuses in the background, once all jobs have been loaded.
+     */
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void startup() {
+        BuildStatusEngine.execute(() -> {
+            try {
+                get().reconcile();
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, ex, () -> "Unable to reconcile folder statuses!");
+            }
+        });
+    }
+
+    /**
+     * Persist the statuses on shutdown.
+     */
+    @Terminator
+    public static void shutdown() {
+        get().save();
+    }
+
+    /**
+     * Periodically persist the statuses, so they are available even if the controller is not shut down cleanly.
+     */
+    @Extension
+    @Restricted(NoExternalUse.class)
+    public static class BuildStatusSnapshotSaver extends PeriodicWork {
+
+        @Override
+        public long getRecurrencePeriod() {
+            return 5 * MIN;
+        }
+
+        @Override
+        protected void doRun() {
+            get().save();
+        }
+    }
+
+    private record Entry(int fingerprint, BuildStatus status) {}
+}
@@ -0,0 +1,67 @@
+package jenkins.plugins.foldericon;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Result;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * The jobs are failing if at least a percentage of them is failing, otherwise failing jobs only make them unstable.
+ */
+public class FailureThresholdStrategy extends AggregationStrategy {
+
+    private static final int DEFAULT_THRESHOLD = 50;
+
+    private final int threshold;
+
+    /**
+     * Ctor.
+     *
+     * @param threshold the percentage of jobs with a result that have to be failing (1 - 100).
+     */
+    @DataBoundConstructor
+    public FailureThresholdStrategy(int threshold) {
+        this.threshold = threshold > 0 ? Math.min(threshold, 100) : DEFAULT_THRESHOLD;
+    }
+
+    /**
+     * @return the percentage of jobs with a result that have to be failing.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public Result aggregate(@NonNull BuildStatus status) {
+        int failing = status.getCount(Result.FAILURE);
+        int rated = 0;
+        Result worst = null;
+        for (Result result : BuildStatus.getResults()) {
+            int count = status.getCount(result);
+            rated += count;
+            if (count > 0 && result != Result.FAILURE) {
+                worst = result;
+            }
+        }
+
+        if (failing > 0 && failing * 100L >= threshold * (long) rated) {
+            return Result.FAILURE;
+        } else if (failing > 0 && (worst == null || worst.isBetterThan(Result.UNSTABLE))) {
+            return Result.UNSTABLE;
+        }
+        return worst;
+    }
+
+    /**
+     * The Descriptor.
+     */
+    @Extension(ordinal = 70)
+    public static class DescriptorImpl extends AggregationStrategyDescriptor {
+
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return Messages.FailureThresholdStrategy_description();
+        }
+    }
+}
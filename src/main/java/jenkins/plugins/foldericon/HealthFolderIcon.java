@@ -0,0 +1,117 @@
+package jenkins.plugins.foldericon;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.HealthReport;
+import java.util.Set;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.Stapler;
+
+/**
+ * A Health Folder Icon.
+ * <p>
+ * Shows the weather of the combined health of the jobs within a folder. The health scores are kept per job and counted
+ * by the cached combined build status, so build records are only loaded once per completed build of a job.
+ */
+public class HealthFolderIcon extends BuildStatusFolderIcon {
+
+    private boolean average;
+
+    /**
+     * Ctor.
+     *
+     * @param jobs the jobs to consider for combined health (null / empty means all jobs).
+     */
+    @DataBoundConstructor
+    public HealthFolderIcon(Set<String> jobs) {
+        super(jobs);
+    }
+
+    /**
+     * @return whether the average health of the jobs is shown instead of the worst one.
+     */
+    public boolean isAverage() {
+        return average;
+    }
+
+    /**
+     * @param average whether the average health of the jobs is shown instead of the worst one.
+     */
+    @DataBoundSetter
+    public void setAverage(boolean average) {
+        this.average = average;
+    }
+
+    /**
+     * @param combined the combined build status
+     * @return the health report representing the health of the given status (null if none of the jobs has a health
+     * score).
+     */
+    private HealthReport getHealthReport(BuildStatus combined) {
+        int score = average ? combined.getAverageHealth() : combined.getWorstHealth();
+        return score >= 0 ? new HealthReport(score, Messages._HealthFolderIcon_health(score)) : null;
+    }
+
+    @Override
+    boolean isHealthConsidered() {
+        return true;
+    }
+
+    @Override
+    String getIconClassName(BuildStatus combined) {
+        HealthReport report = getHealthReport(combined);
+        // without any health score, e.g. because no job has been built yet, show the combined build status instead
+        return report != null ? "symbol-weather-" + report.getIconClassName() : super.getIconClassName(combined);
+    }
+
+    @Override
+    public String getImageOf(String size) {
+        if (isDeferred()) {
+            return super.getImageOf(size);
+        }
+        HealthReport report = getHealthReport(getRequestStatus());
+        if (report == null) {
+            return super.getImageOf(size);
+        }
+        return Stapler.getCurrentRequest2().getContextPath() + report.getIconUrl(size);
+    }
+
+    @Override
+    public String getDescription() {
+        if (isDeferred()) {
+            return super.getDescription();
+        }
+        BuildStatus combined = getRequestStatus();
+        String description;
+        if (combined.getHealthCount() > 0) {
+            description = Messages.HealthFolderIcon_health(combined.getAverageHealth()) + ", "
+                    + Messages.HealthFolderIcon_worst(combined.getWorstHealth());
+        } else {
+            description = Messages.HealthFolderIcon_unknown();
+        }
+        if (combined.isStale()) {
+            description += ", " + Messages.BuildStatusFolderIcon_stale();
+        }
+        return describe(description);
+    }
+
+    @Override
+    public DescriptorImpl getDescriptor() {
+        return (DescriptorImpl) Jenkins.get().getDescriptorOrDie(getClass());
+    }
+
+    /**
+     * The Descriptor.
+     */
+    @Extension
+    public static class DescriptorImpl extends BuildStatusFolderIcon.DescriptorImpl {
+
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return Messages.HealthFolderIcon_description();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package jenkins.plugins.foldericon;
+
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Selects the jobs considered by a {@link BuildStatusFolderIcon}.
+ * <p>
+ * Jobs are selected explicitly by their name relative to the folder, or by include / exclude patterns matching their
+ * relative display name. Patterns are compiled once and the result of matching a job is memoized by its full name, so
+ * a job's display name only has to be built again after it has been changed.
+ */
+final class JobMatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(JobMatcher.class.getName());
+
+    /**
+     * Prefix of patterns using regular expressions instead of globs.
+     */
+    static final String REGEX_PREFIX = "regex:";
+
+    private final Set<String> names;
+
+    private final List<Pattern> includes;
+
+    private final List<Pattern> excludes;
+
+    private final Map<String, Boolean> results = new ConcurrentHashMap<>();
+
+    /**
+     * Ctor.
+     *
+     * @param names    the explicitly selected job names relative to the folder (may be null)
+     * @param includes the include patterns, one per line (may be null)
+     * @param excludes the exclude patterns, one per line (may be null)
+     */
+    JobMatcher(Set<String> names, String includes, String excludes) {
+        this.names = names != null ? names : Set.of();
+        this.includes = compileAll(includes);
+        this.excludes = compileAll(excludes);
+    }
+
+    /**
+     * @return whether this matcher selects all jobs.
+     */
+    boolean isEmpty() {
+        return names.isEmpty() && includes.isEmpty() && excludes.isEmpty();
+    }
+
+    /**
+     * @return whether this matcher has any include or exclude patterns, otherwise only the explicitly selected jobs
+     * are matched.
+     */
+    boolean hasPatterns() {
+        return !includes.isEmpty() || !excludes.isEmpty();
+    }
+
+    /**
+     * @return the explicitly selected job names relative to the folder.
+     */
+    Set<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Check whether a job is selected, reusing a previous result for the same job.
+     *
+     * @param job   the job
+     * @param owner the folder the job names are relative to
+     * @return whether the job is selected
+     */
+    boolean matches(Job<?, ?> job, ItemGroup<?> owner) {
+        return results.computeIfAbsent(job.getFullName(), key -> {
+            String name = job.getRelativeNameFrom(owner);
+            // the display name is only needed for patterns
+            return matches(name, hasPatterns() ? job.getRelativeDisplayNameFrom(owner) : name);
+        });
+    }
+
+    /**
+     * Check whether a job name is selected, if its name and its display name are the same.
+     *
+     * @param name the relative name of the job
+     * @return whether the job name is selected
+     */
+    boolean matches(String name) {
+        return matches(name, name);
+    }
+
+    /**
+     * Check whether a job name is selected.
+     *
+     * @param name        the relative name of the job
+     * @param displayName the relative display name of the job
+     * @return whether the job name is selected
+     */
+    boolean matches(String name, String displayName) {
+        boolean included = (names.isEmpty() && includes.isEmpty())
+                || names.contains(name)
+                || includes.stream()
+                        .anyMatch(pattern -> pattern.matcher(displayName).matches());
+        return included
+                && excludes.stream()
+                        .noneMatch(pattern -> pattern.matcher(displayName).matches());
+    }
+
+    /**
+     * Forget the memoized result of a job, e.g. because it has been renamed.
+     *
+     * @param fullName the full name of the job
+     */
+    void forget(String fullName) {
+        results.remove(fullName);
+    }
+
+    /**
+     * Forget all memoized results, e.g. because a folder has been renamed.
+     */
+    void reset() {
+        results.clear();
+    }
+
+    /**
+     * Compile a single pattern.
+     *
+     * @param pattern the glob or the regular expression prefixed by {@value #REGEX_PREFIX}
+     * @return the compiled pattern
+     * @throws PatternSyntaxException if the regular expression is invalid
+     */
+    static Pattern compile(String pattern) {
+        if (pattern.startsWith(REGEX_PREFIX)) {
+            return Pattern.compile(pattern.substring(REGEX_PREFIX.length()));
+        }
+
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Split patterns into lines, ignoring blank lines.
+     *
+     * @param patterns the patterns, one per line (may be null)
+     * @return the patterns
+     */
+    static List<String> split(String patterns) {
+        if (patterns == null || patterns.isBlank()) {
+            return List.of();
+        }
+        return patterns.lines()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty())
+                .toList();
+    }
+
+    private static List<Pattern> compileAll(String patterns) {
+        List<Pattern> compiled = new ArrayList<>();
+        for (String pattern : split(patterns)) {
+            try {
+                compiled.add(compile(pattern));
+            } catch (PatternSyntaxException ex) {
+                LOGGER.log(Level.WARNING, ex, () -> "Ignoring invalid job pattern '" + pattern + "'!");
+            }
+        }
+        return Collections.unmodifiableList(compiled);
+    }
+}
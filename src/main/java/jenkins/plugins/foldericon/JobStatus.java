@@ -0,0 +1,247 @@
+package jenkins.plugins.foldericon;
+
+import hudson.model.HealthReport;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+
+/**
+ * A lightweight summary of the build status of a single job.
+ * <p>
+ * It is maintained by {@link JobStatusStore} from build events, so the combined build status of a folder can be
+ * computed without loading any build records.
+ */
+final class JobStatus {
+
+    /**
+     * The status of a job without any builds.
+     */
+    static final JobStatus NONE = new JobStatus(0, null, false);
+
+    /**
+     * The health score of a job that has not been computed yet, because it might load build records.
+     */
+    static final int UNKNOWN_HEALTH = -2;
+
+    private final int number;
+
+    private final Result result;
+
+    private final long completed;
+
+    private final int health;
+
+    private final boolean building;
+
+    private final boolean queued;
+
+    private final int nextBuildNumber;
+
+    /**
+     * Ctor.
+     *
+     * @param number   the number of the last completed build (0 if there is none).
+     * @param result   the result of the last completed build (null if there is none).
+     * @param building whether the last build is still building.
+     */
+    JobStatus(int number, Result result, boolean building) {
+        this(number, result, 0L, -1, building);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param number    the number of the last completed build (0 if there is none).
+     * @param result    the result of the last completed build (null if there is none).
+     * @param completed the time the last completed build has finished in milliseconds (0 if there is none).
+     * @param health    the health score of the job (-1 if there is none, {@link #UNKNOWN_HEALTH} if it has not been
+     *                  computed yet).
+     * @param building  whether the last build is still building.
+     */
+    JobStatus(int number, Result result, long completed, int health, boolean building) {
+        this(number, result, completed, health, building, false, number + 1);
+    }
+
+    private JobStatus(
+            int number,
+            Result result,
+            long completed,
+            int health,
+            boolean building,
+            boolean queued,
+            int nextBuildNumber) {
+        this.number = number;
+        this.result = result;
+        this.completed = completed;
+        this.health = health;
+        this.building = building;
+        this.queued = queued;
+        this.nextBuildNumber = nextBuildNumber;
+    }
+
+    private static long getCompleted(Run<?, ?> run) {
+        return run.getStartTimeInMillis() + run.getDuration();
+    }
+
+    /**
+     * Get the health score of a job, the worst of its health reports.
+     * <p>
+     * This might load build records from disk, so it is only computed once per completed build for jobs considered by a
+     * {@link HealthFolderIcon}.
+     *
+     * @param job the job
+     * @return the health score of the job (-1 if there is none)
+     */
+    static int getHealth(Job<?, ?> job) {
+        return job.getBuildHealthReports().stream()
+                .mapToInt(HealthReport::getScore)
+                .min()
+                .orElse(-1);
+    }
+
+    /**
+     * Create the status of a job from its build records, without its health score.
+     * <p>
+     * This might load build records from disk, so it is only used for jobs without a status yet.
+     *
+     * @param job the job
+     * @return the status of the job
+     */
+    static JobStatus of(Job<?, ?> job) {
+        Run<?, ?> lastBuild = job.getLastBuild();
+        boolean building = lastBuild != null && lastBuild.isBuilding();
+        Run<?, ?> lastCompletedBuild = building ? job.getLastCompletedBuild() : lastBuild;
+        JobStatus status;
+        if (lastCompletedBuild != null) {
+            status = new JobStatus(
+                    lastCompletedBuild.getNumber(),
+                    lastCompletedBuild.getResult(),
+                    getCompleted(lastCompletedBuild),
+                    UNKNOWN_HEALTH,
+                    building);
+        } else {
+            status = building ? new JobStatus(0, null, true) : NONE;
+        }
+        return status.withNextBuildNumber(job.getNextBuildNumber());
+    }
+
+    /**
+     * @return the number of the last completed build (0 if there is none).
+     */
+    int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return the result of the last completed build (null if there is none).
+     */
+    Result getResult() {
+        return result;
+    }
+
+    /**
+     * @return the time the last completed build has finished in milliseconds (0 if there is none).
+     */
+    long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return the health score of the job (-1 if there is none, {@link #UNKNOWN_HEALTH} if it has not been computed
+     * yet).
+     */
+    int getHealth() {
+        return health;
+    }
+
+    /**
+     * @return whether the last build is still building.
+     */
+    boolean isBuilding() {
+        return building;
+    }
+
+    /**
+     * @return whether the job is waiting in the queue.
+     */
+    boolean isQueued() {
+        return queued;
+    }
+
+    /**
+     * @return the number of the next build of the job, at the time of the last build event.
+     */
+    int getNextBuildNumber() {
+        return nextBuildNumber;
+    }
+
+    /**
+     * @param building whether the last build is still building.
+     * @return a copy of this status with the given building flag.
+     */
+    JobStatus withBuilding(boolean building) {
+        return this.building == building
+                ? this
+                : new JobStatus(number, result, completed, health, building, queued, nextBuildNumber);
+    }
+
+    /**
+     * @param queued whether the job is waiting in the queue.
+     * @return a copy of this status with the given queued flag.
+     */
+    JobStatus withQueued(boolean queued) {
+        return this.queued == queued
+                ? this
+                : new JobStatus(number, result, completed, health, building, queued, nextBuildNumber);
+    }
+
+    /**
+     * @param health the health score of the job (-1 if there is none).
+     * @return a copy of this status with the given health score.
+     */
+    JobStatus withHealth(int health) {
+        return this.health == health
+                ? this
+                : new JobStatus(number, result, completed, health, building, queued, nextBuildNumber);
+    }
+
+    /**
+     * @param nextBuildNumber the number of the next build of the job.
+     * @return a copy of this status with the given number of the next build.
+     */
+    JobStatus withNextBuildNumber(int nextBuildNumber) {
+        return this.nextBuildNumber == nextBuildNumber
+                ? this
+                : new JobStatus(number, result, completed, health, building, queued, nextBuildNumber);
+    }
+
+    /**
+     * @param run a started build
+     * @return a copy of this status updated with the given build.
+     */
+    JobStatus withStarted(Run<?, ?> run) {
+        return withBuilding(true).withNextBuildNumber(Math.max(nextBuildNumber, run.getNumber() + 1));
+    }
+
+    /**
+     * @param run      a completed build
+     * @param health   the health score of the job (-1 if there is none, {@link #UNKNOWN_HEALTH} if it has not been
+     *                 computed yet).
+     * @param building whether the last build is still building.
+     * @return a copy of this status updated with the given build, unless a later build has already completed.
+     */
+    JobStatus withCompleted(Run<?, ?> run, int health, boolean building) {
+        if (run.getNumber() >= number) {
+            return new JobStatus(
+                    run.getNumber(),
+                    run.getResult(),
+                    getCompleted(run),
+                    health,
+                    building,
+                    queued,
+                    Math.max(nextBuildNumber, run.getNumber() + 1));
+        } else {
+            return withBuilding(building);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package jenkins.plugins.foldericon;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.PeriodicWork;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.util.AtomicFileWriter;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps a {@link JobStatus} for every job, so the combined build status of a folder never has to load build records.
+ * <p>
+ * The statuses are updated from build events and persisted to a compact file in {@code JENKINS_HOME}, one job per
+ * line. A job without a status, e.g. because it has never been built since this plugin has been installed, gets its
+ * status from its build records once.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class JobStatusStore {
+
+    private static final Logger LOGGER = Logger.getLogger(JobStatusStore.class.getName());
+
+    private static final String HEADER = "# number\tresult\tcompleted\thealth\tnext build number\tfull name";
+
+    private static final String NO_RESULT = "-";
+
+    private final Map<String, JobStatus> statuses = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> queuedItems = new ConcurrentHashMap<>();
+
+    private final Set<String> unverified = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Ctor.
+     */
+    public JobStatusStore() {
+        load();
+    }
+
+    /**
+     * @return the singleton instance
+     */
+    static JobStatusStore get() {
+        return ExtensionList.lookupSingleton(JobStatusStore.class);
+    }
+
+    /**
+     * Get the status of a job, creating it from its build records if there is none yet.
+     * <p>
+     * A persisted status is checked once against the number of the next build of the job, it is created again if
+     * builds have been started since it has been persisted, e.g. because the controller crashed before saving it.
+     *
+     * @param job the job
+     * @return the status of the job
+     */
+    JobStatus get(Job<?, ?> job) {
+        String fullName = job.getFullName();
+        JobStatus status = statuses.get(fullName);
+        if (status != null
+                && unverified.remove(fullName)
+                && status.getNextBuildNumber() != job.getNextBuildNumber()
+                && statuses.remove(fullName, status)) {
+            dirty.set(true);
+            status = null;
+        }
+        if (status == null) {
+            JobStatus created = JobStatus.of(job).withQueued(queuedItems.containsKey(fullName));
+            // a build event might have created the status in the meantime
+            status = statuses.putIfAbsent(fullName, created);
+            if (status == null) {
+                dirty.set(true);
+                status = created;
+                if (queuedItems.containsKey(fullName) != created.isQueued()) {
+                    // an item entered or left the queue in the meantime
+                    JobStatus queued = statuses.computeIfPresent(
+                            fullName, (key, current) -> current.withQueued(queuedItems.containsKey(key)));
+                    if (queued != null) {
+                        status = queued;
+                    }
+                }
+            }
+        }
+        return status;
+    }
+
+    /**
+     * @param fullName the full name of the job
+     * @return the status of the job or null if there is none yet.
+     */
+    JobStatus getIfPresent(String fullName) {
+        return statuses.get(fullName);
+    }
+
+    /**
+     * @return the version of the statuses, increased before any status is changed by a build event.
+     */
+    long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Update the status of a job for a started build.
+     *
+     * @param run the started build
+     * @return the update or null if the job has no status yet.
+     */
+    Update onStarted(Run<?, ?> run) {
+        JobStatus[] previous = new JobStatus[1];
+        long[] updated = new long[1];
+        // without a status the previous result is unknown, it will be created from the build records when needed
+        JobStatus current = statuses.computeIfPresent(run.getParent().getFullName(), (key, status) -> {
+            previous[0] = status;
+            updated[0] = version.incrementAndGet();
+            return status.withStarted(run);
+        });
+        return current != null ? new Update(previous[0], current, updated[0]) : null;
+    }
+
+    /**
+     * Update the status of a job for a completed build.
+     *
+     * @param run the completed build
+     * @return the update, its previous status is null if the job had no status yet.
+     */
+    Update onCompleted(Run<?, ?> run) {
+        Job<?, ?> job = run.getParent();
+        boolean building = job.isBuilding();
+        JobStatus[] previous = new JobStatus[1];
+        long[] updated = new long[1];
+        // the health score is only computed when a folder considers it
+        JobStatus current = statuses.compute(job.getFullName(), (key, status) -> {
+            previous[0] = status;
+            updated[0] = version.incrementAndGet();
+            return (status != null ? status : JobStatus.NONE).withCompleted(run, JobStatus.UNKNOWN_HEALTH, building);
+        });
+        dirty.set(true);
+        return new Update(previous[0], current, updated[0]);
+    }
+
+    /**
+     * Get the health score of a job, computing it once for its last completed build if it is not known yet.
+     *
+     * @param job    the job
+     * @param status the status of the job
+     * @return the health score of the job (-1 if there is none)
+     */
+    int getHealth(Job<?, ?> job, JobStatus status) {
+        if (status.getHealth() != JobStatus.UNKNOWN_HEALTH) {
+            return status.getHealth();
+        }
+        int health = JobStatus.getHealth(job);
+        statuses.computeIfPresent(
+                job.getFullName(),
+                (key, current) ->
+                        current.getNumber() == status.getNumber() && current.getHealth() == JobStatus.UNKNOWN_HEALTH
+                                ? current.withHealth(health)
+                                : current);
+        dirty.set(true);
+        return health;
+    }
+
+    /**
+     * Compute the health score of the current status of an update if it is not known yet, e.g. because a
+     * {@link HealthFolderIcon} considers the job.
+     *
+     * @param job    the job
+     * @param update the update
+     * @return the update including the health score of the current status
+     */
+    Update withHealth(Job<?, ?> job, Update update) {
+        JobStatus current = update.current();
+        if (current.getHealth() != JobStatus.UNKNOWN_HEALTH) {
+            return update;
+        }
+        return new Update(update.previous(), current.withHealth(getHealth(job, current)), update.version());
+    }
+
+    /**
+     * Update the status of a job for an item entering or leaving the queue.
+     * <p>
+     * The queued items are counted per job from queue events, so the queue itself is never iterated.
+     *
+     * @param job   the job
+     * @param delta 1 for an item entering the queue, -1 for an item leaving it
+     * @return the update or null if the job has no status yet.
+     */
+    Update onQueueChanged(Job<?, ?> job, int delta) {
+        JobStatus[] previous = new JobStatus[1];
+        long[] updated = new long[1];
+        JobStatus current = statuses.compute(job.getFullName(), (key, status) -> {
+            boolean queued = countQueued(key, delta);
+            if (status == null) {
+                // the status will be created with the queued items when needed
+                return null;
+            }
+            previous[0] = status;
+            updated[0] = version.incrementAndGet();
+            return status.withQueued(queued);
+        });
+        return current != null ? new Update(previous[0], current, updated[0]) : null;
+    }
+
+    private boolean countQueued(String fullName, int delta) {
+        return queuedItems.compute(fullName, (key, count) -> {
+                    int queued = (count != null ? count : 0) + delta;
+                    return queued > 0 ? queued : null;
+                })
+                != null;
+    }
+
+    /**
+     * Update the status of a job for a deleted build.
+     *
+     * @param run the deleted build
+     */
+    void onDeleted(Run<?, ?> run) {
+        // the status will be created again from the build records when needed
+        statuses.computeIfPresent(
+                run.getParent().getFullName(),
+                (key, status) -> status.getNumber() == run.getNumber() || status.isBuilding() ? null : status);
+        dirty.set(true);
+    }
+
+    /**
+     * Remove the status of a deleted job, or of all jobs within a deleted folder.
+     *
+     * @param item the deleted item
+     */
+    void onDeleted(Item item) {
+        String fullName = item.getFullName();
+        statuses.remove(fullName);
+        queuedItems.remove(fullName);
+        unverified.remove(fullName);
+        if (item instanceof ItemGroup<?>) {
+            String prefix = fullName + "/";
+            statuses.keySet().removeIf(key -> key.startsWith(prefix));
+            queuedItems.keySet().removeIf(key -> key.startsWith(prefix));
+            unverified.removeIf(key -> key.startsWith(prefix));
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Move the status of a renamed or moved job.
+     * <p>
+     * Items within a moved folder receive their own event, so only the given full name has to be moved.
+     *
+     * @param oldFullName the old full name
+     * @param newFullName the new full name
+     */
+    void onLocationChanged(String oldFullName, String newFullName) {
+        JobStatus status = statuses.remove(oldFullName);
+        if (status != null) {
+            statuses.put(newFullName, status);
+            dirty.set(true);
+        }
+        Integer queued = queuedItems.remove(oldFullName);
+        if (queued != null) {
+            queuedItems.put(newFullName, queued);
+        }
+        if (unverified.remove(oldFullName)) {
+            unverified.add(newFullName);
+        }
+    }
+
+    /**
+     * Remove the statuses of jobs that do not exist anymore, e.g. because they have been removed while the controller
+     * was down.
+     */
+    void prune() {
+        Jenkins jenkins = Jenkins.get();
+        if (statuses.keySet().removeIf(fullName -> jenkins.getItemByFullName(fullName, Job.class) == null)) {
+            dirty.set(true);
+        }
+        unverified.retainAll(statuses.keySet());
+    }
+
+    /**
+     * A changed status of a job.
+     *
+     * @param previous the previous status (null if there was none)
+     * @param current  the current status
+     * @param version  the version of the statuses including this change
+     */
+    record Update(JobStatus previous, JobStatus current, long version) {}
+
+    private static File getFile() {
+        return new File(Jenkins.get().getRootDir(), JobStatusStore.class.getName() + ".txt");
+    }
+
+    /**
+     * Load the persisted statuses.
+     */
+    private void load() {
+        File file = getFile();
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                // statuses persisted without completion time, health or next build number are created again from the
+                // build records
+                String[] fields = line.split("\t", 6);
+                if (fields.length == 6) {
+                    try {
+                        int number = Integer.parseInt(fields[0]);
+                        Result result = NO_RESULT.equals(fields[1]) ? null : Result.fromString(fields[1]);
+                        long completed = Long.parseLong(fields[2]);
+                        int health = Integer.parseInt(fields[3]);
+                        int nextBuildNumber = Integer.parseInt(fields[4]);
+                        statuses.put(
+                                fields[5],
+                                new JobStatus(number, result, completed, health, false)
+                                        .withNextBuildNumber(nextBuildNumber));
+                        unverified.add(fields[5]);
+                    } catch (NumberFormatException ex) {
+                        LOGGER.log(Level.FINE, ex, () -> "Ignoring invalid job status in " + file);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, ex, () -> "Unable to load job statuses from " + file + "!");
+        }
+    }
+
+    /**
+     * Persist the statuses if they have been changed since they have been persisted last.
+     */
+    synchronized void save() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+
+        File file = getFile();
+        try {
+            AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+            try {
+                writer.write(HEADER + "\n");
+                StringBuilder line = new StringBuilder();
+                for (Map.Entry<String, JobStatus> entry : statuses.entrySet()) {
+                    JobStatus status = entry.getValue();
+                    // running builds might not survive a restart, so these statuses are created again when needed
+                    if (!status.isBuilding()) {
+                        line.setLength(0);
+                        line.append(status.getNumber())
+                                .append('\t')
+                                .append(status.getResult() != null ? status.getResult() : NO_RESULT)
+                                .append('\t')
+                                .append(status.getCompleted())
+                                .append('\t')
+                                .append(status.getHealth())
+                                .append('\t')
+                                .append(status.getNextBuildNumber())
+                                .append('\t')
+                                .append(entry.getKey())
+                                .append('\n');
+                        writer.write(line.toString());
+                    }
+                }
+                writer.commit();
+            } finally {
+                writer.abort();
+            }
+        } catch (IOException ex) {
+            dirty.set(true);
+            LOGGER.log(Level.WARNING, ex, () -> "Unable to save job statuses to " + file + "!");
+        }
+    }
+
+    /**
+     * Persist the statuses on shutdown.
+     */
+    @Terminator
+    public static void shutdown() {
+        get().save();
+    }
+
+    /**
+     * Periodically persist the changed statuses.
+     */
+    @Extension
+    @Restricted(NoExternalUse.class)
+    public static class JobStatusSaver extends PeriodicWork {
+
+        @Override
+        public long getRecurrencePeriod() {
+            return MIN;
+        }
+
+        @Override
+        protected void doRun() {
+            get().save();
+        }
+    }
+}
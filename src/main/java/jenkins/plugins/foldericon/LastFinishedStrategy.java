@@ -0,0 +1,40 @@
+package jenkins.plugins.foldericon;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Result;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * The result of the build that has completed last wins.
+ */
+public class LastFinishedStrategy extends AggregationStrategy {
+
+    /**
+     * Ctor.
+     */
+    @DataBoundConstructor
+    public LastFinishedStrategy() {
+        // nothing to configure
+    }
+
+    @Override
+    public Result aggregate(@NonNull BuildStatus status) {
+        // e.g. restored statuses do not know the last build until they have been reconciled
+        Result result = status.getLastResult();
+        return result != null ? result : status.getResult();
+    }
+
+    /**
+     * The Descriptor.
+     */
+    @Extension(ordinal = 60)
+    public static class DescriptorImpl extends AggregationStrategyDescriptor {
+
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return Messages.LastFinishedStrategy_description();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package jenkins.plugins.foldericon;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Result;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * The result of most jobs wins, the worse result on a tie.
+ */
+public class MajorityResultStrategy extends AggregationStrategy {
+
+    /**
+     * Ctor.
+     */
+    @DataBoundConstructor
+    public MajorityResultStrategy() {
+        // nothing to configure
+    }
+
+    @Override
+    public Result aggregate(@NonNull BuildStatus status) {
+        Result majority = null;
+        int max = 0;
+        for (Result result : BuildStatus.getResults()) {
+            int count = status.getCount(result);
+            if (count > 0 && count >= max) {
+                majority = result;
+                max = count;
+            }
+        }
+        return majority;
+    }
+
+    /**
+     * The Descriptor.
+     */
+    @Extension(ordinal = 80)
+    public static class DescriptorImpl extends AggregationStrategyDescriptor {
+
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return Messages.MajorityResultStrategy_description();
+        }
+    }
+}
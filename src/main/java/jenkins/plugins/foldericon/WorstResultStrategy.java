@@ -0,0 +1,38 @@
+package jenkins.plugins.foldericon;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Result;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * The worst result of all jobs wins, this is the default {@link AggregationStrategy}.
+ */
+public class WorstResultStrategy extends AggregationStrategy {
+
+    /**
+     * Ctor.
+     */
+    @DataBoundConstructor
+    public WorstResultStrategy() {
+        // nothing to configure
+    }
+
+    @Override
+    public Result aggregate(@NonNull BuildStatus status) {
+        return status.getResult();
+    }
+
+    /**
+     * The Descriptor.
+     */
+    @Extension(ordinal = 100)
+    public static class DescriptorImpl extends AggregationStrategyDescriptor {
+
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return Messages.WorstResultStrategy_description();
+        }
+    }
+}
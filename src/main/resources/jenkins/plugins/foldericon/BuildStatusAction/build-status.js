@@ -0,0 +1,125 @@
+/**
+ * Update the icons of build status folders in place when their combined build status changes.
+ *
+ * Pages listing many build status folders render placeholders instead, the statuses of these folders are loaded in
+ * batches as soon as their rows become visible.
+ */
+Behaviour.specify('[id="folder-build-status"]', "FolderBuildStatus", 0, (element) => {
+    const parent = element.dataset.parent;
+
+    const update = (folder) => {
+        const row = document.getElementById("job_" + folder.name);
+        if (row == null) {
+            return;
+        }
+
+        const oldIcon = row.querySelector(".jenkins-table__icon svg");
+        if (oldIcon == null) {
+            return;
+        }
+
+        const template = document.createElement("template");
+        template.innerHTML = folder.symbol.trim();
+        const newIcon = template.content.firstElementChild;
+        if (newIcon == null) {
+            return;
+        }
+
+        newIcon.setAttribute("class", oldIcon.getAttribute("class") || "");
+        oldIcon.parentNode.replaceChild(newIcon, oldIcon);
+        Behaviour.applySubtree(newIcon.parentNode, true);
+    };
+
+    let etag = null;
+
+    const refresh = () => {
+        const headers = etag != null ? { "If-None-Match": etag } : {};
+        return fetch(rootURL + "/folder-build-status/statuses?symbols=true&parent=" + encodeURIComponent(parent), {
+            headers: headers,
+            cache: "no-store",
+        }).then((response) => {
+            if (response.status === 304) {
+                return;
+            }
+            if (!response.ok) {
+                return Promise.reject(response);
+            }
+            etag = response.headers.get("ETag");
+            return response.json().then((json) => json.folders.forEach(update));
+        });
+    };
+
+    const poll = (since) => {
+        fetch(rootURL + "/folder-build-status/changes?since=" + since + "&parent=" + encodeURIComponent(parent))
+            .then((response) => (response.ok ? response.json() : Promise.reject(response)))
+            .then((json) => {
+                json.folders.forEach(update);
+                if (json.poll) {
+                    // too many pages are waiting for changes, poll the statuses before waiting again
+                    setTimeout(() => {
+                        refresh()
+                            .catch((error) => console.error(error))
+                            .finally(() => poll(json.sequence));
+                    }, json.poll);
+                } else {
+                    poll(json.sequence);
+                }
+            })
+            .catch((error) => {
+                console.error(error);
+                setTimeout(() => poll(since), 30000);
+            });
+    };
+
+    const load = (names) => {
+        const query = names
+            .map((name) => "&folder=" + encodeURIComponent(parent ? parent + "/" + name : name))
+            .join("");
+        fetch(rootURL + "/folder-build-status/statuses?symbols=true" + query)
+            .then((response) => (response.ok ? response.json() : Promise.reject(response)))
+            .then((json) => json.folders.forEach(update))
+            .catch((error) => console.error(error));
+    };
+
+    const defer = (names) => {
+        const batchSize = 50;
+        if (!("IntersectionObserver" in window)) {
+            for (let index = 0; index < names.length; index += batchSize) {
+                load(names.slice(index, index + batchSize));
+            }
+            return;
+        }
+
+        let visible = [];
+        let timeout = null;
+        const observer = new IntersectionObserver((entries) => {
+            entries
+                .filter((entry) => entry.isIntersecting)
+                .forEach((entry) => {
+                    observer.unobserve(entry.target);
+                    visible.push(entry.target.dataset.folderName);
+                });
+            if (visible.length > 0 && timeout == null) {
+                // collect the rows becoming visible while scrolling into a single request
+                timeout = setTimeout(() => {
+                    timeout = null;
+                    while (visible.length > 0) {
+                        load(visible.splice(0, batchSize));
+                    }
+                }, 100);
+            }
+        });
+        names.forEach((name) => {
+            const row = document.getElementById("job_" + name);
+            if (row != null) {
+                row.dataset.folderName = name;
+                observer.observe(row);
+            }
+        });
+    };
+
+    if (element.dataset.deferred) {
+        defer(JSON.parse(element.dataset.deferred));
+    }
+    poll(element.dataset.sequence);
+});
@@ -0,0 +1,77 @@
+/**
+ * Load the jobs of the folder on demand, so the configuration does not have to list all of them.
+ */
+Behaviour.specify(".build-status-job-picker", "BuildStatusJobPicker", 0, (picker) => {
+    // the URL of the folder is rendered by the server, the page URL might not point to it
+    let searchUrl = picker.dataset.searchUrl;
+
+    let selected = picker.querySelector(".build-status-job-selected");
+    let template = picker.querySelector(".build-status-job-template");
+    let search = picker.querySelector(".build-status-job-search");
+    let results = picker.querySelector(".build-status-job-results");
+    let more = picker.querySelector(".build-status-job-more");
+    let start = 0;
+    let timeout;
+
+    const isListed = (job) => {
+        return Array.from(picker.querySelectorAll('.build-status-job input[type="checkbox"]')).some(
+            (checkbox) => checkbox.getAttribute("json") === job,
+        );
+    };
+
+    const addJob = (job) => {
+        let entry = template.cloneNode(true);
+        entry.classList.remove("build-status-job-template", "jenkins-hidden");
+        entry.classList.add("build-status-job");
+
+        let id = "build-status-job-" + Math.random().toString(36).substring(2);
+        let checkbox = entry.querySelector('input[type="checkbox"]');
+        checkbox.setAttribute("json", job);
+        checkbox.id = id;
+        checkbox.checked = false;
+
+        let label = entry.querySelector("label");
+        if (label != null) {
+            label.textContent = job;
+            label.setAttribute("for", id);
+        }
+
+        results.appendChild(entry);
+    };
+
+    const load = (reset) => {
+        if (reset) {
+            // keep the jobs selected from previous results
+            results.querySelectorAll('input[type="checkbox"]:checked').forEach((checkbox) => {
+                selected.appendChild(checkbox.closest(".build-status-job"));
+            });
+            results.replaceChildren();
+            start = 0;
+        }
+
+        fetch(searchUrl + "?query=" + encodeURIComponent(search.value) + "&start=" + start)
+            .then((response) => (response.ok ? response.json() : Promise.reject(response)))
+            .then((json) => {
+                json.jobs.filter((job) => !isListed(job)).forEach(addJob);
+                start = json.next;
+                more.classList.toggle("jenkins-hidden", json.next < 0);
+            })
+            .catch((error) => {
+                console.error(error);
+            });
+    };
+
+    search.addEventListener("input", () => {
+        clearTimeout(timeout);
+        timeout = setTimeout(() => load(true), 300);
+    });
+    search.addEventListener("keydown", (event) => {
+        // do not submit the configuration
+        if (event.key === "Enter") {
+            event.preventDefault();
+        }
+    });
+    more.addEventListener("click", () => load(false));
+
+    load(true);
+});
@@ -0,0 +1,80 @@
+package jenkins.plugins.foldericon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import hudson.model.Result;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Aggregation Strategy Tests
+ */
+class AggregationStrategyTest {
+
+    private static BuildStatus status(int success, int unstable, int failure) {
+        int[] results = BuildStatus.newCounters();
+        results[Result.SUCCESS.ordinal] = success;
+        results[Result.UNSTABLE.ordinal] = unstable;
+        results[Result.FAILURE.ordinal] = failure;
+        return new BuildStatus(results, 0, 0, success + unstable + failure);
+    }
+
+    /**
+     * Test behavior of the strategies without any results.
+     */
+    @Test
+    void empty() {
+        assertThat(new WorstResultStrategy().aggregate(BuildStatus.EMPTY), nullValue());
+        assertThat(new BestResultStrategy().aggregate(BuildStatus.EMPTY), nullValue());
+        assertThat(new MajorityResultStrategy().aggregate(BuildStatus.EMPTY), nullValue());
+        assertThat(new FailureThresholdStrategy(50).aggregate(BuildStatus.EMPTY), nullValue());
+        assertThat(new LastFinishedStrategy().aggregate(BuildStatus.EMPTY), nullValue());
+    }
+
+    /**
+     * Test behavior of the strategies derived from the counters.
+     */
+    @Test
+    void counters() {
+        BuildStatus status = status(3, 1, 2);
+        assertThat(new WorstResultStrategy().aggregate(status), is(Result.FAILURE));
+        assertThat(new BestResultStrategy().aggregate(status), is(Result.SUCCESS));
+        assertThat(new MajorityResultStrategy().aggregate(status), is(Result.SUCCESS));
+        assertThat(new MajorityResultStrategy().aggregate(status(2, 0, 2)), is(Result.FAILURE));
+    }
+
+    /**
+     * Test behavior of {@link FailureThresholdStrategy}.
+     */
+    @Test
+    void failureThreshold() {
+        assertThat(new FailureThresholdStrategy(0).getThreshold(), is(50));
+        assertThat(new FailureThresholdStrategy(150).getThreshold(), is(100));
+
+        FailureThresholdStrategy strategy = new FailureThresholdStrategy(50);
+        assertThat(strategy.aggregate(status(3, 0, 0)), is(Result.SUCCESS));
+        assertThat(strategy.aggregate(status(3, 0, 1)), is(Result.UNSTABLE));
+        assertThat(strategy.aggregate(status(2, 0, 2)), is(Result.FAILURE));
+        assertThat(new FailureThresholdStrategy(10).aggregate(status(8, 1, 1)), is(Result.FAILURE));
+    }
+
+    /**
+     * Test behavior of {@link LastFinishedStrategy}.
+     */
+    @Test
+    void lastFinished() {
+        LastFinishedStrategy strategy = new LastFinishedStrategy();
+        BuildStatus status = status(1, 0, 1);
+        assertThat(strategy.aggregate(status), is(Result.FAILURE));
+
+        JobStatus failed = new JobStatus(1, Result.FAILURE, 1000L, -1, false);
+        JobStatus fixed = new JobStatus(2, Result.SUCCESS, 2000L, -1, false);
+        status = status.withChanged(failed, fixed);
+        assertThat(strategy.aggregate(status), is(Result.SUCCESS));
+
+        BuildStatus other = status(0, 1, 0).withLastCompleted(Result.UNSTABLE, 3000L);
+        assertThat(strategy.aggregate(status.combine(other)), is(Result.UNSTABLE));
+        assertThat(strategy.aggregate(other.combine(status)), is(Result.UNSTABLE));
+    }
+}
@@ -0,0 +1,43 @@
+package jenkins.plugins.foldericon;
+
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with {@code mvn test -P benchmark}, the profile also adds the annotation processor
+ * generating the benchmark code.
+ * <p>
+ * The class name does not match the default test includes, so the benchmarks are not run by regular builds.
+ */
+class BenchmarkRunner {
+
+    /**
+     * Run all benchmarks annotated with {@link jenkins.benchmark.jmh.JmhBenchmark}.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void runJmhBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.AverageTime)
+                .warmupIterations(2)
+                .measurementIterations(3)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .threads(1)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-report.json");
+
+        BenchmarkFinder finder = new BenchmarkFinder(getClass());
+        finder.findBenchmarks(options);
+        new Runner(options.build()).run();
+    }
+}
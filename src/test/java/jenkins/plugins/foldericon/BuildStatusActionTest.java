@@ -0,0 +1,242 @@
+package jenkins.plugins.foldericon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.BallColor;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import jenkins.plugins.foldericon.utils.ResultBuilder;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.htmlunit.Page;
+import org.htmlunit.html.DomElement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Build Status Action Tests
+ */
+@WithJenkins
+class BuildStatusActionTest {
+
+    private JenkinsRule r;
+
+    private long debounceWindow;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        r = rule;
+        // recompute right away instead of showing the previous status until the scheduled update
+        debounceWindow = BuildStatusEngine.DEBOUNCE_WINDOW;
+        BuildStatusEngine.DEBOUNCE_WINDOW = 0L;
+    }
+
+    @AfterEach
+    void tearDown() {
+        BuildStatusEngine.DEBOUNCE_WINDOW = debounceWindow;
+    }
+
+    /**
+     * Test behavior of {@link BuildStatusAction#doStatuses(org.kohsuke.stapler.StaplerRequest2)}.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void doStatuses() throws Exception {
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        folder.setIcon(new BuildStatusFolderIcon(null));
+        Folder subfolder = folder.createProject(Folder.class, "subfolder");
+        subfolder.setIcon(new BuildStatusFolderIcon(null));
+        Folder other = r.jenkins.createProject(Folder.class, "other");
+        other.setIcon(new BuildStatusFolderIcon(null));
+        r.jenkins.createProject(Folder.class, "plain");
+
+        FreeStyleProject failure = subfolder.createProject(FreeStyleProject.class, "failure");
+        failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+
+        try (JenkinsRule.WebClient webClient = r.createWebClient()) {
+            JSONArray folders = getFolders(webClient, "folder=other&folder=plain&folder=missing");
+            assertThat(folders.size(), is(1));
+            assertThat(folders.getJSONObject(0).getString("fullName"), is("other"));
+            assertThat(folders.getJSONObject(0).getString("color"), is(BallColor.NOTBUILT.toString()));
+            assertThat(folders.getJSONObject(0).has("result"), is(false));
+
+            folders = getFolders(webClient, "subtree=folder");
+            assertThat(folders.size(), is(2));
+            for (int i = 0; i < folders.size(); i++) {
+                JSONObject status = folders.getJSONObject(i);
+                assertThat(status.getString("result"), is(Result.FAILURE.toString()));
+                assertThat(status.getString("iconClassName"), is("symbol-status-" + BallColor.RED.getIconName()));
+                assertThat(status.getBoolean("running"), is(false));
+                assertThat(status.getBoolean("stale"), is(false));
+            }
+
+            folders = getFolders(webClient, "subtree=");
+            assertThat(folders.size(), is(3));
+
+            folders = getFolders(webClient, "parent=");
+            assertThat(folders.size(), is(2));
+            folders = getFolders(webClient, "parent=folder");
+            assertThat(folders.size(), is(1));
+            assertThat(folders.getJSONObject(0).getString("fullName"), is("folder/subfolder"));
+        }
+    }
+
+    /**
+     * Test behavior of conditional requests.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void etag() throws Exception {
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        folder.setIcon(new BuildStatusFolderIcon(null));
+        FreeStyleProject project = folder.createProject(FreeStyleProject.class, "job");
+
+        try (JenkinsRule.WebClient webClient = r.createWebClient()) {
+            String path = BuildStatusAction.URL_NAME + "/statuses?folder=folder";
+            Page page = webClient.goTo(path, "application/json");
+            String etag = page.getWebResponse().getResponseHeaderValue("ETag");
+            assertThat(etag, notNullValue());
+
+            webClient.addRequestHeader("If-None-Match", etag);
+            webClient.setThrowExceptionOnFailingStatusCode(false);
+            page = webClient.goTo(path, null);
+            assertThat(page.getWebResponse().getStatusCode(), is(HttpServletResponse.SC_NOT_MODIFIED));
+
+            r.buildAndAssertSuccess(project);
+
+            page = webClient.goTo(path, "application/json");
+            assertThat(page.getWebResponse().getStatusCode(), is(HttpServletResponse.SC_OK));
+        }
+    }
+
+    /**
+     * Test behavior of {@link BuildStatusAction#doChanges(long, String)}.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void doChanges() throws Exception {
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        folder.setIcon(new BuildStatusFolderIcon(null));
+        Folder subfolder = folder.createProject(Folder.class, "subfolder");
+        subfolder.setIcon(new BuildStatusFolderIcon(null));
+
+        long sequence = BuildStatusEngine.getSequence();
+        FreeStyleProject failure = subfolder.createProject(FreeStyleProject.class, "failure");
+        failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+
+        try (JenkinsRule.WebClient webClient = r.createWebClient()) {
+            Page page = webClient.goTo(
+                    BuildStatusAction.URL_NAME + "/changes?since=" + sequence + "&parent=folder", "application/json");
+            JSONObject json = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+            assertThat(json.getLong("sequence"), greaterThan(sequence));
+
+            JSONArray folders = json.getJSONArray("folders");
+            assertThat(folders.size(), is(1));
+            JSONObject status = folders.getJSONObject(0);
+            assertThat(status.getString("fullName"), is("folder/subfolder"));
+            assertThat(status.getString("name"), is("subfolder"));
+            assertThat(status.getString("iconClassName"), is("symbol-status-" + BallColor.RED.getIconName()));
+            assertThat(status.getString("symbol"), containsString("<svg"));
+        }
+
+        // changes of folders within other parents are not reported
+        assertThat(BuildStatusEngine.awaitChanges(sequence, "folder", 10L).fullNames(), contains("folder/subfolder"));
+        assertThat(
+                BuildStatusEngine.awaitChanges(sequence, "folder/subfolder", 10L)
+                        .fullNames(),
+                empty());
+
+        BuildStatusEngine.Changes changes = BuildStatusEngine.awaitChanges(BuildStatusEngine.getSequence(), 10L);
+        assertThat(changes.fullNames(), empty());
+    }
+
+    /**
+     * Test behavior of the script waiting for changes on pages showing build status folders.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void pageScope() throws Exception {
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        Folder subfolder = folder.createProject(Folder.class, "subfolder");
+
+        try (JenkinsRule.WebClient webClient = r.createWebClient()) {
+            webClient.getOptions().setJavaScriptEnabled(false);
+            assertThat(webClient.getPage(folder).getElementById("folder-build-status"), nullValue());
+
+            subfolder.setIcon(new BuildStatusFolderIcon(null));
+            DomElement element = webClient.getPage(folder).getElementById("folder-build-status");
+            assertThat(element, notNullValue());
+            assertThat(element.getAttribute("data-parent"), is("folder"));
+            assertThat(element.hasAttribute("data-deferred"), is(false));
+
+            assertThat(webClient.goTo("").getElementById("folder-build-status"), nullValue());
+        }
+    }
+
+    /**
+     * Test behavior of pages listing more build status folders than the threshold.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void deferred() throws Exception {
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        for (int i = 0; i <= BuildStatusAction.DEFER_THRESHOLD; i++) {
+            Folder subfolder = folder.createProject(Folder.class, "subfolder" + i);
+            subfolder.setIcon(new BuildStatusFolderIcon(null));
+        }
+
+        FreeStyleProject failure =
+                ((Folder) folder.getItem("subfolder0")).createProject(FreeStyleProject.class, "failure");
+        failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+
+        try (JenkinsRule.WebClient webClient = r.createWebClient()) {
+            webClient.getOptions().setJavaScriptEnabled(false);
+            DomElement element = webClient.getPage(folder).getElementById("folder-build-status");
+            assertThat(element, notNullValue());
+            JSONArray deferred = JSONArray.fromObject(element.getAttribute("data-deferred"));
+            assertThat(deferred.size(), is(BuildStatusAction.DEFER_THRESHOLD + 1));
+            assertThat(deferred.contains("subfolder0"), is(true));
+
+            // the placeholders are replaced with the statuses including the rendered symbols
+            JSONArray folders = getFolders(webClient, "symbols=true&folder=folder/subfolder0");
+            assertThat(folders.size(), is(1));
+            JSONObject status = folders.getJSONObject(0);
+            assertThat(status.getString("name"), is("subfolder0"));
+            assertThat(status.getString("result"), is("FAILURE"));
+            assertThat(status.getString("description"), containsString(BallColor.RED.getDescription()));
+            assertThat(status.getString("symbol"), containsString("<svg"));
+
+            assertThat(
+                    getFolders(webClient, "folder=folder/subfolder0")
+                            .getJSONObject(0)
+                            .has("symbol"),
+                    is(false));
+        }
+    }
+
+    private static JSONArray getFolders(JenkinsRule.WebClient webClient, String query) throws Exception {
+        Page page = webClient.goTo(BuildStatusAction.URL_NAME + "/statuses?" + query, "application/json");
+        return JSONObject.fromObject(page.getWebResponse().getContentAsString()).getJSONArray("folders");
+    }
+}
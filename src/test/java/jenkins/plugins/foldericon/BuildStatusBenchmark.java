@@ -0,0 +1,58 @@
+package jenkins.plugins.foldericon;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the sequential and the parallel computation of the combined build status, to find the number of jobs above
+ * which the parallel computation pays off.
+ */
+@JmhBenchmark
+public class BuildStatusBenchmark {
+
+    /**
+     * A folder with a configurable number of built jobs.
+     */
+    @State(Scope.Benchmark)
+    @SuppressWarnings("rawtypes")
+    public static class FolderState extends JmhBenchmarkState {
+
+        @Param({"100", "500", "1000", "2000", "5000"})
+        public int size;
+
+        List<Job> jobs;
+
+        @Override
+        public void setup() throws Exception {
+            Folder folder = getJenkins().createProject(Folder.class, "folder");
+            jobs = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                FreeStyleProject project = folder.createProject(FreeStyleProject.class, "job-" + i);
+                project.scheduleBuild2(0).get();
+                jobs.add(project);
+            }
+            // populate the job statuses, so only the aggregation itself is measured
+            BuildStatusEngine.aggregateSequential(jobs);
+        }
+    }
+
+    @Benchmark
+    public void sequential(FolderState state, Blackhole blackhole) {
+        blackhole.consume(BuildStatusEngine.aggregateSequential(state.jobs));
+    }
+
+    @Benchmark
+    public void parallel(FolderState state, Blackhole blackhole) {
+        blackhole.consume(BuildStatusEngine.aggregateParallel(state.jobs));
+    }
+}
@@ -0,0 +1,301 @@
+package jenkins.plugins.foldericon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.FreeStyleProject;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Result;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import jenkins.plugins.foldericon.utils.ResultBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Build Status Engine Tests
+ */
+@WithJenkins
+class BuildStatusEngineTest {
+
+    private JenkinsRule r;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        r = rule;
+    }
+
+    /**
+     * Test behavior of the parallel computation compared to the sequential one.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    @SuppressWarnings("rawtypes")
+    void aggregateParallel() throws Exception {
+        FreeStyleProject success = r.createFreeStyleProject("success");
+        r.buildAndAssertSuccess(success);
+
+        FreeStyleProject unstable = r.createFreeStyleProject("unstable");
+        unstable.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.UNSTABLE)));
+        r.buildAndAssertStatus(Result.UNSTABLE, unstable);
+
+        FreeStyleProject disabled = r.createFreeStyleProject("disabled");
+        disabled.makeDisabled(true);
+
+        assertThat(BuildStatusEngine.aggregateParallel(List.of()).getBallColor(), is(BuildStatus.EMPTY.getBallColor()));
+
+        // enough jobs to be split into several tasks
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < BuildStatusEngine.PARALLEL_THRESHOLD; i++) {
+            jobs.add(success);
+            jobs.add(disabled);
+        }
+        jobs.add(unstable);
+
+        BuildStatus sequential = BuildStatusEngine.aggregateSequential(jobs);
+        BuildStatus parallel = BuildStatusEngine.aggregateParallel(jobs);
+        assertThat(parallel.getResult(), is(Result.UNSTABLE));
+        assertThat(parallel.getResult(), is(sequential.getResult()));
+        assertThat(parallel.isRunning(), is(sequential.isRunning()));
+        assertThat(parallel.isBuildable(), is(sequential.isBuildable()));
+        assertThat(parallel.isEmpty(), is(sequential.isEmpty()));
+        assertThat(BuildStatusEngine.aggregate(jobs).getResult(), is(Result.UNSTABLE));
+    }
+
+    /**
+     * Test behavior of only considering jobs whose last build has completed within a time window.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void aggregateSince() throws Exception {
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        FreeStyleProject failure = folder.createProject(FreeStyleProject.class, "failure");
+        failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+        FreeStyleProject none = folder.createProject(FreeStyleProject.class, "none");
+
+        Thread.sleep(10);
+        long since = System.currentTimeMillis();
+        Thread.sleep(10);
+        FreeStyleProject success = folder.createProject(FreeStyleProject.class, "success");
+        r.buildAndAssertSuccess(success);
+
+        List<FreeStyleProject> jobs = List.of(failure, none, success);
+        assertThat(BuildStatusEngine.aggregateSequential(jobs).getResult(), is(Result.FAILURE));
+        assertThat(BuildStatusEngine.aggregateSequential(jobs, since, false).getResult(), is(Result.SUCCESS));
+        assertThat(BuildStatusEngine.aggregateSequential(jobs, since, false).getTotalCount(), is(1));
+        assertThat(BuildStatusEngine.aggregateParallel(jobs, since, false).getResult(), is(Result.SUCCESS));
+        assertThat(
+                BuildStatusEngine.aggregateSequential(jobs, System.currentTimeMillis() + 1000, false)
+                        .isEmpty(),
+                is(true));
+
+        BuildStatusFolderIcon icon = new BuildStatusFolderIcon(null);
+        icon.setMaxAge(1);
+        folder.setIcon(icon);
+        assertThat(icon.getStatus().getResult(), is(Result.FAILURE));
+        assertThat(icon.getStatus().getTotalCount(), is(2));
+        assertThat(icon.getStatus().getOldestCompleted(), lessThan(since));
+
+        // queue events do not change which jobs are considered, so the status is updated instead of recomputed
+        BuildStatusEngine.update(success, JobStatusStore.get().onQueueChanged(success, 1));
+        BuildStatusEngine.update(none, JobStatusStore.get().onQueueChanged(none, 1));
+        assertThat(icon.getCachedStatus(), notNullValue());
+        assertThat(icon.getCachedStatus().getQueuedCount(), is(1));
+        BuildStatusEngine.update(success, JobStatusStore.get().onQueueChanged(success, -1));
+        BuildStatusEngine.update(none, JobStatusStore.get().onQueueChanged(none, -1));
+        assertThat(icon.getCachedStatus(), notNullValue());
+        assertThat(icon.getCachedStatus().getQueuedCount(), is(0));
+    }
+
+    /**
+     * Test behavior of coalescing events of a folder into a single recomputation.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void debounce() throws Exception {
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        BuildStatusFolderIcon icon = new BuildStatusFolderIcon(null);
+        folder.setIcon(icon);
+        r.buildAndAssertSuccess(folder.createProject(FreeStyleProject.class, "job"));
+        assertThat(icon.getStatus().getResult(), is(Result.SUCCESS));
+        // let the update scheduled by the build pass
+        Thread.sleep(BuildStatusEngine.DEBOUNCE_WINDOW * 2);
+
+        long events = BuildStatusEngine.getEvents();
+        long recomputations = BuildStatusEngine.getRecomputations();
+        long sequence = BuildStatusEngine.getSequence();
+        for (int i = 0; i < 50; i++) {
+            icon.invalidate();
+        }
+        assertThat(icon.getCachedStatus(), nullValue());
+        assertThat(BuildStatusEngine.getSequence(), is(sequence));
+
+        // the previous status is shown until the scheduled update
+        BuildStatus previous = icon.getStatus(BuildStatusEngine.COMPUTATION_BUDGET);
+        assertThat(previous.isStale(), is(true));
+        assertThat(previous.getResult(), is(Result.SUCCESS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (icon.getCachedStatus() == null) {
+                Thread.sleep(BuildStatusEngine.DEBOUNCE_WINDOW / 10);
+            }
+        });
+        assertThat(icon.getCachedStatus().getResult(), is(Result.SUCCESS));
+        assertThat(BuildStatusEngine.getEvents() - events, greaterThanOrEqualTo(50L));
+        assertThat(BuildStatusEngine.getRecomputations() - recomputations, is(1L));
+
+        // the icon has not changed, so clients are not notified
+        Thread.sleep(BuildStatusEngine.DEBOUNCE_WINDOW);
+        assertThat(BuildStatusEngine.getSequence(), is(sequence));
+    }
+
+    /**
+     * Test behavior of concurrent computations sharing a single computation in progress.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void computeOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        Supplier<BuildStatus> computation = () -> {
+            computations.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return BuildStatus.EMPTY;
+        };
+
+        long avoided = BuildStatusEngine.getAvoidedRecomputations();
+        Future<BuildStatus> running = BuildStatusEngine.computeOnceAsync("key", computation);
+        for (int i = 0; i < 10; i++) {
+            assertThat(BuildStatusEngine.computeOnceAsync("key", computation), sameInstance(running));
+        }
+        assertThat(BuildStatusEngine.getAvoidedRecomputations() - avoided, is(10L));
+
+        // a different key does not share the computation
+        Future<BuildStatus> other = BuildStatusEngine.computeOnceAsync("other", computation);
+        assertThat(other, not(sameInstance(running)));
+
+        release.countDown();
+        assertThat(running.get(), sameInstance(BuildStatus.EMPTY));
+        assertThat(other.get(), sameInstance(BuildStatus.EMPTY));
+        assertThat(computations.get(), is(2));
+
+        // a finished computation is not reused
+        assertThat(BuildStatusEngine.computeOnce("key", computation), sameInstance(BuildStatus.EMPTY));
+        assertThat(computations.get(), is(3));
+    }
+
+    /**
+     * Test behavior of a computation waiting for a computation that is still queued, e.g. a folder computing the
+     * status of its subfolder while all background threads are busy.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void computeQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<BuildStatus> blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return BuildStatus.EMPTY;
+        };
+        List<Future<BuildStatus>> busy = new ArrayList<>();
+        for (int i = 0; i < BuildStatusEngine.COMPUTATION_THREADS; i++) {
+            busy.add(BuildStatusEngine.computeOnceAsync("busy" + i, blocked));
+        }
+
+        AtomicInteger computations = new AtomicInteger();
+        Supplier<BuildStatus> computation = () -> {
+            computations.incrementAndGet();
+            return BuildStatus.EMPTY;
+        };
+        Future<BuildStatus> queued = BuildStatusEngine.computeOnceAsync("queued", computation);
+
+        // the queued computation is taken over instead of waiting for a background thread
+        assertThat(BuildStatusEngine.computeOnce("queued", computation), sameInstance(BuildStatus.EMPTY));
+        assertThat(queued.isDone(), is(true));
+        assertThat(computations.get(), is(1));
+
+        release.countDown();
+        for (Future<BuildStatus> future : busy) {
+            assertThat(future.get(), sameInstance(BuildStatus.EMPTY));
+        }
+        assertThat(computations.get(), is(1));
+    }
+
+    /**
+     * Test behavior of the index of icons interested in the jobs of a folder.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void interests() throws Exception {
+        Folder top = r.jenkins.createProject(Folder.class, "top");
+        BuildStatusFolderIcon topIcon = new BuildStatusFolderIcon(null);
+        top.setIcon(topIcon);
+        Folder nested = top.createProject(Folder.class, "nested");
+        BuildStatusFolderIcon nestedIcon = new BuildStatusFolderIcon(null);
+        nested.setIcon(nestedIcon);
+        Folder inner = nested.createProject(Folder.class, "inner");
+
+        BuildStatusFolderIcon[] icons = BuildStatusEngine.getInterestedIcons(inner);
+        assertThat(icons, arrayContaining(nestedIcon, topIcon));
+        // jobs of the same folder share the indexed icons
+        assertThat(BuildStatusEngine.getInterestedIcons(inner), sameInstance(icons));
+
+        // the depth is considered
+        topIcon.setDepth(2);
+        assertThat(BuildStatusEngine.getInterestedIcons(inner), arrayContaining(nestedIcon));
+        assertThat(BuildStatusEngine.getInterestedIcons(nested), arrayContaining(nestedIcon, topIcon));
+
+        // a replaced icon is not interested anymore
+        nested.setIcon(new EmojiFolderIcon(null));
+        assertThat(BuildStatusEngine.getInterestedIcons(inner), emptyArray());
+        assertThat(BuildStatusEngine.getInterestedIcons(nested), arrayContaining(topIcon));
+
+        // a moved folder is interested in the folders of its new parent only
+        Folder other = r.jenkins.createProject(Folder.class, "other");
+        BuildStatusFolderIcon otherIcon = new BuildStatusFolderIcon(null);
+        other.setIcon(otherIcon);
+        nested = Items.move(nested, other);
+        assertThat(BuildStatusEngine.getInterestedIcons(nested), arrayContaining(otherIcon));
+        assertThat(BuildStatusEngine.getInterestedIcons(inner), arrayContaining(otherIcon));
+
+        // the status is still updated from build events
+        FreeStyleProject failure = inner.createProject(FreeStyleProject.class, "failure");
+        failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+        assertThat(otherIcon.getStatus().getResult(), is(Result.FAILURE));
+        assertThat(topIcon.getStatus().getResult(), nullValue());
+    }
+}
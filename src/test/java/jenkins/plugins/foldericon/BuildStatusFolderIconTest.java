@@ -4,30 +4,58 @@ import static jenkins.plugins.foldericon.utils.TestUtils.mockStaplerRequest;
 import static jenkins.plugins.foldericon.utils.TestUtils.validateSymbol;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
 
 import com.cloudbees.hudson.plugins.folder.Folder;
 import com.cloudbees.hudson.plugins.folder.FolderIcon;
+import com.cloudbees.hudson.plugins.folder.icons.StockFolderIcon;
 import hudson.model.BallColor;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
 import hudson.model.Result;
+import hudson.model.TopLevelItem;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.FormValidation;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import jenkins.branch.OrganizationFolder;
+import jenkins.model.Jenkins;
 import jenkins.plugins.foldericon.BuildStatusFolderIcon.DescriptorImpl;
 import jenkins.plugins.foldericon.utils.DelayBuilder;
 import jenkins.plugins.foldericon.utils.ResultBuilder;
+import net.sf.json.JSONObject;
+import org.htmlunit.Page;
+import org.htmlunit.html.DomElement;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.TestExtension;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
 import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest2;
 import org.mockito.MockedStatic;
 
 /**
@@ -38,9 +66,19 @@ class BuildStatusFolderIconTest {
 
     private JenkinsRule r;
 
+    private long debounceWindow;
+
     @BeforeEach
     void setUp(JenkinsRule rule) {
         r = rule;
+        // recompute right away instead of showing the previous status until the scheduled update
+        debounceWindow = BuildStatusEngine.DEBOUNCE_WINDOW;
+        BuildStatusEngine.DEBOUNCE_WINDOW = 0L;
+    }
+
+    @AfterEach
+    void tearDown() {
+        BuildStatusEngine.DEBOUNCE_WINDOW = debounceWindow;
     }
 
     /**
@@ -64,6 +102,86 @@ class BuildStatusFolderIconTest {
         assertThat(customIcon.getAvailableJobs(), contains("Aborted", "Success"));
     }
 
+    /**
+     * Test behavior of the cached listing of available jobs on item events.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void cachedAvailableJobs() throws Exception {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(null);
+        project.setIcon(customIcon);
+
+        FreeStyleProject job = project.createProject(FreeStyleProject.class, "B");
+        List<BuildStatusFolderIcon.AvailableJob> listing = customIcon.getAvailableJobEntries();
+        assertThat(customIcon.getAvailableJobEntries(), sameInstance(listing));
+
+        project.createProject(FreeStyleProject.class, "A");
+        assertThat(customIcon.getAvailableJobs(), contains("A", "B"));
+
+        job.renameTo("C");
+        assertThat(customIcon.getAvailableJobs(), contains("A", "C"));
+
+        // jobs are listed by their names, the display names are only searched
+        job.setDisplayName("Display");
+        assertThat(customIcon.getAvailableJobs(), contains("A", "C"));
+
+        job.delete();
+        assertThat(customIcon.getAvailableJobs(), contains("A"));
+    }
+
+    /**
+     * Test behavior of {@link DescriptorImpl#doSearchJobs(com.cloudbees.hudson.plugins.folder.AbstractFolder, String,
+     * int)}.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void doSearchJobs() throws Exception {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.setIcon(new BuildStatusFolderIcon(null));
+        for (int i = 0; i < DescriptorImpl.PAGE_SIZE + 10; i++) {
+            project.createProject(FreeStyleProject.class, String.format("job-%03d", i));
+        }
+        project.createProject(FreeStyleProject.class, "Other");
+
+        try (JenkinsRule.WebClient webClient = r.createWebClient()) {
+            JSONObject page = searchJobs(webClient, "job", 0);
+            assertThat(page.getJSONArray("jobs").size(), is(DescriptorImpl.PAGE_SIZE));
+            assertThat(page.getJSONArray("jobs").getString(0), is("job-000"));
+            assertThat(page.getInt("total"), is(DescriptorImpl.PAGE_SIZE + 10));
+            assertThat(page.getInt("next"), is(DescriptorImpl.PAGE_SIZE));
+
+            page = searchJobs(webClient, "job", page.getInt("next"));
+            assertThat(page.getJSONArray("jobs").size(), is(10));
+            assertThat(page.getInt("next"), is(-1));
+
+            page = searchJobs(webClient, "oTHer", 0);
+            assertThat(page.getJSONArray("jobs").size(), is(1));
+            assertThat(page.getJSONArray("jobs").getString(0), is("Other"));
+
+            page = searchJobs(webClient, "", 0);
+            assertThat(page.getInt("total"), is(DescriptorImpl.PAGE_SIZE + 11));
+
+            // the URL of the search is rendered by the configuration page instead of derived from the page URL
+            webClient.getOptions().setJavaScriptEnabled(false);
+            DomElement picker =
+                    (DomElement) webClient.getPage(project, "configure").querySelector(".build-status-job-picker");
+            assertThat(
+                    picker.getAttribute("data-search-url"),
+                    endsWith("/job/folder/descriptorByName/" + BuildStatusFolderIcon.class.getName() + "/searchJobs"));
+        }
+    }
+
+    private static JSONObject searchJobs(JenkinsRule.WebClient webClient, String query, int start) throws Exception {
+        Page page = webClient.goTo(
+                "job/folder/descriptorByName/" + BuildStatusFolderIcon.class.getName() + "/searchJobs?query=" + query
+                        + "&start=" + start,
+                "application/json");
+        return JSONObject.fromObject(page.getWebResponse().getContentAsString());
+    }
+
     /**
      * Test behavior when there is a configuration for jobs to consider.
      *
@@ -107,8 +225,28 @@ class BuildStatusFolderIconTest {
             icon = project.getIcon();
             validateSymbol(icon, BallColor.ABORTED.getImage(), BallColor.ABORTED.getIconName());
 
+            customIcon = new BuildStatusFolderIcon(Set.of("subfolder/Nested"));
+            project.setIcon(customIcon);
+            icon = project.getIcon();
+            validateSymbol(icon, BallColor.NOTBUILT.getImage(), BallColor.NOTBUILT.getIconName());
+
+            // selections by display name persisted by previous versions are migrated to names once
+            customIcon = (BuildStatusFolderIcon) Items.XSTREAM2.fromXML("<" + BuildStatusFolderIcon.class.getName()
+                    + "><jobs class=\"java.util.HashSet\"><string>subfolder » Nested</string></jobs></"
+                    + BuildStatusFolderIcon.class.getName() + ">");
+            project.setIcon(customIcon);
+            project.save();
+            assertThat(customIcon.getJobs(), contains("subfolder/Nested"));
+            assertThat(project.getConfigFile().asString(), containsString("<selectionVersion>1</selectionVersion>"));
+            assertThat(customIcon.migrateSelection(), is(false));
+            icon = project.getIcon();
+            validateSymbol(icon, BallColor.NOTBUILT.getImage(), BallColor.NOTBUILT.getIconName());
+
+            // selections by display name are not migrated, but still resolved for the status
             customIcon = new BuildStatusFolderIcon(Set.of("subfolder » Nested"));
             project.setIcon(customIcon);
+            assertThat(customIcon.migrateSelection(), is(false));
+            assertThat(customIcon.getJobs(), contains("subfolder » Nested"));
             icon = project.getIcon();
             validateSymbol(icon, BallColor.NOTBUILT.getImage(), BallColor.NOTBUILT.getIconName());
 
@@ -124,6 +262,293 @@ class BuildStatusFolderIconTest {
         }
     }
 
+    /**
+     * Test behavior when there are patterns for jobs to consider.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void withConfiguredPatterns() throws Exception {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+
+        try (MockedStatic<Stapler> stapler = mockStatic(Stapler.class)) {
+            mockStaplerRequest(stapler);
+
+            // Setup
+            FreeStyleProject main = project.createProject(FreeStyleProject.class, "main");
+            r.buildAndAssertSuccess(main);
+
+            FreeStyleProject release = project.createProject(FreeStyleProject.class, "release-1.0");
+            release.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.UNSTABLE)));
+            r.buildAndAssertStatus(Result.UNSTABLE, release);
+
+            FreeStyleProject feature = project.createProject(FreeStyleProject.class, "feature-1");
+            feature.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+            r.buildAndAssertStatus(Result.FAILURE, feature);
+
+            // Validate
+            BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(null);
+            customIcon.setIncludes("main\nrelease-*");
+            project.setIcon(customIcon);
+            FolderIcon icon = project.getIcon();
+            validateSymbol(icon, BallColor.YELLOW.getImage(), BallColor.YELLOW.getIconName());
+
+            customIcon = new BuildStatusFolderIcon(null);
+            customIcon.setExcludes("regex:feature-\\d+");
+            project.setIcon(customIcon);
+            icon = project.getIcon();
+            validateSymbol(icon, BallColor.YELLOW.getImage(), BallColor.YELLOW.getIconName());
+
+            customIcon = new BuildStatusFolderIcon(Set.of("main"));
+            customIcon.setIncludes("feature-*");
+            customIcon.setExcludes("feature-*");
+            project.setIcon(customIcon);
+            icon = project.getIcon();
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+
+            // a new matching job is considered as well
+            FreeStyleProject newRelease = project.createProject(FreeStyleProject.class, "release-2.0");
+            newRelease.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+            r.buildAndAssertStatus(Result.FAILURE, newRelease);
+
+            customIcon = new BuildStatusFolderIcon(null);
+            customIcon.setIncludes("release-*");
+            project.setIcon(customIcon);
+            icon = project.getIcon();
+            validateSymbol(icon, BallColor.RED.getImage(), BallColor.RED.getIconName());
+
+            newRelease.delete();
+            validateSymbol(icon, BallColor.YELLOW.getImage(), BallColor.YELLOW.getIconName());
+        }
+    }
+
+    /**
+     * Test behavior of {@link DescriptorImpl#doCheckIncludes(Item, String)} and
+     * {@link DescriptorImpl#doCheckExcludes(Item, String)}.
+     */
+    @Test
+    void doCheckPatterns() {
+        BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(null);
+        DescriptorImpl descriptor = customIcon.getDescriptor();
+
+        assertThat(descriptor.doCheckIncludes(null, null).kind, is(FormValidation.ok().kind));
+        assertThat(descriptor.doCheckIncludes(null, "main\nrelease/*").kind, is(FormValidation.ok().kind));
+        assertThat(descriptor.doCheckExcludes(null, "regex:feature/.*").kind, is(FormValidation.ok().kind));
+
+        assertThat(descriptor.doCheckIncludes(null, "main\nregex:(").kind, is(FormValidation.Kind.ERROR));
+        assertThat(descriptor.doCheckExcludes(null, "regex:[").kind, is(FormValidation.Kind.ERROR));
+    }
+
+    /**
+     * Test behavior when a configured job is moved.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void withMovedConfiguredJob() throws Exception {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        Folder other = r.jenkins.createProject(Folder.class, "other");
+
+        try (MockedStatic<Stapler> stapler = mockStatic(Stapler.class)) {
+            mockStaplerRequest(stapler);
+
+            // Setup
+            FreeStyleProject success = project.createProject(FreeStyleProject.class, "Success");
+            r.buildAndAssertSuccess(success);
+
+            FreeStyleProject failure = project.createProject(FreeStyleProject.class, "Failure");
+            failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+            r.buildAndAssertStatus(Result.FAILURE, failure);
+
+            project.setIcon(new BuildStatusFolderIcon(Set.of("Success")));
+            FolderIcon icon = project.getIcon();
+
+            // Validate
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+
+            success = Items.move(success, other);
+            validateSymbol(icon, BallColor.RED.getImage(), BallColor.RED.getIconName());
+
+            Items.move(success, project);
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+        }
+    }
+
+    /**
+     * Test behavior when a configured job or the folder is renamed or moved.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void withRenamedConfiguredJob() throws Exception {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        Folder subfolder = project.createProject(Folder.class, "subfolder");
+
+        try (MockedStatic<Stapler> stapler = mockStatic(Stapler.class)) {
+            mockStaplerRequest(stapler);
+
+            // Setup
+            FreeStyleProject success = subfolder.createProject(FreeStyleProject.class, "Success");
+            r.buildAndAssertSuccess(success);
+
+            FreeStyleProject failure = project.createProject(FreeStyleProject.class, "Failure");
+            failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+            r.buildAndAssertStatus(Result.FAILURE, failure);
+
+            BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(Set.of("subfolder/Success"));
+            project.setIcon(customIcon);
+            FolderIcon icon = project.getIcon();
+
+            // Validate
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+            assertThat(BuildStatusEngine.getSelectingIcons("folder/subfolder/Success"), contains(customIcon));
+
+            success.renameTo("Renamed");
+            assertThat(customIcon.getJobs(), contains("subfolder/Renamed"));
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+
+            Folder parent = project.createProject(Folder.class, "parent");
+            Items.move(subfolder, parent);
+            assertThat(customIcon.getJobs(), contains("parent/subfolder/Renamed"));
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+
+            Folder top = r.jenkins.createProject(Folder.class, "top");
+            project = Items.move(project, top);
+            assertThat(customIcon.getJobs(), contains("parent/subfolder/Renamed"));
+            assertThat(
+                    BuildStatusEngine.getSelectingIcons("top/folder/parent/subfolder/Renamed"), contains(customIcon));
+            assertThat(BuildStatusEngine.getSelectingIcons("folder/parent/subfolder/Renamed"), empty());
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+
+            // the rewritten selection has been persisted
+            assertThat(project.getConfigFile().asString(), containsString("parent/subfolder/Renamed"));
+
+            // a replaced icon is removed from the index right away
+            BuildStatusFolderIcon replacement = new BuildStatusFolderIcon(Set.of("parent/subfolder/Renamed"));
+            project.setIcon(replacement);
+            assertThat(customIcon.isIndexed(), is(false));
+            assertThat(replacement.isIndexed(), is(true));
+
+            project.setIcon(new StockFolderIcon());
+            project.save();
+            assertThat(replacement.isIndexed(), is(false));
+        }
+    }
+
+    /**
+     * Test behavior of a limited depth.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void withDepth() throws Exception {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(null);
+        customIcon.setDepth(1);
+        project.setIcon(customIcon);
+        assertThat(customIcon.getDepth(), is(1));
+
+        r.buildAndAssertSuccess(project.createProject(FreeStyleProject.class, "Success"));
+        Folder subfolder = project.createProject(Folder.class, "subfolder");
+        BuildStatusFolderIcon subfolderIcon = new BuildStatusFolderIcon(null);
+        subfolderIcon.setDepth(1);
+        subfolder.setIcon(subfolderIcon);
+        Folder nested = subfolder.createProject(Folder.class, "nested");
+
+        FreeStyleProject unstable = subfolder.createProject(FreeStyleProject.class, "Unstable");
+        unstable.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.UNSTABLE)));
+        r.buildAndAssertStatus(Result.UNSTABLE, unstable);
+
+        assertThat(customIcon.getStatus().getResult(), is(Result.SUCCESS));
+        assertThat(customIcon.getStatus().getTotalCount(), is(1));
+        assertThat(subfolderIcon.getStatus().getResult(), is(Result.UNSTABLE));
+
+        // builds beyond the depth do not affect the status
+        FreeStyleProject failure = nested.createProject(FreeStyleProject.class, "Failure");
+        failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+        assertThat(customIcon.getCachedStatus().getResult(), is(Result.SUCCESS));
+        assertThat(subfolderIcon.getCachedStatus().getResult(), is(Result.UNSTABLE));
+
+        customIcon.setDepth(2);
+        assertThat(customIcon.getStatus().getResult(), is(Result.UNSTABLE));
+        assertThat(customIcon.getStatus().getTotalCount(), is(2));
+
+        customIcon.setDepth(0);
+        assertThat(customIcon.getStatus().getResult(), is(Result.FAILURE));
+        assertThat(customIcon.getStatus().getTotalCount(), is(3));
+
+        customIcon.setDepth(1);
+        customIcon.setIncludes("*");
+        assertThat(customIcon.getStatus().getResult(), is(Result.SUCCESS));
+        assertThat(customIcon.getStatus().getTotalCount(), is(1));
+    }
+
+    /**
+     * Test behavior of only considering the jobs visible to the current user.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void withSharedStatus() throws Exception {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(null);
+        project.setIcon(customIcon);
+
+        FreeStyleProject success = project.createProject(FreeStyleProject.class, "Success");
+        r.buildAndAssertSuccess(success);
+        FreeStyleProject failure = project.createProject(FreeStyleProject.class, "Failure");
+        failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        MockAuthorizationStrategy strategy = new MockAuthorizationStrategy();
+        strategy.grant(Jenkins.ADMINISTER).everywhere().to("admin");
+        strategy.grant(Jenkins.READ).everywhere().to("user", "other");
+        strategy.grant(Item.READ).onItems(project, success).to("user", "other");
+        r.jenkins.setAuthorizationStrategy(strategy);
+
+        // the combined build status of the visible jobs by default
+        try (ACLContext ignored = ACL.as2(User.getById("user", true).impersonate2())) {
+            BuildStatus visible = customIcon.getVisibleStatus(0);
+            assertThat(visible.getResult(), is(Result.SUCCESS));
+            assertThat(visible.getTotalCount(), is(1));
+            assertThat(customIcon.getVisibleStatus(0), sameInstance(visible));
+        }
+        try (ACLContext ignored = ACL.as2(User.getById("admin", true).impersonate2())) {
+            assertThat(customIcon.getVisibleStatus(0).getResult(), is(Result.FAILURE));
+        }
+
+        // the status of a user is derived again once a job changes, the hidden jobs are kept
+        strategy.grant(Item.READ).onItems(failure).to("user");
+        try (ACLContext ignored = ACL.as2(User.getById("user", true).impersonate2())) {
+            assertThat(customIcon.getVisibleStatus(0).getResult(), is(Result.SUCCESS));
+        }
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+        try (ACLContext ignored = ACL.as2(User.getById("user", true).impersonate2())) {
+            BuildStatus visible = customIcon.getVisibleStatus(0);
+            assertThat(visible.getResult(), is(Result.SUCCESS));
+            assertThat(visible.getTotalCount(), is(1));
+        }
+
+        // the hidden jobs are listed again once the permissions might have changed
+        r.jenkins.save();
+        try (ACLContext ignored = ACL.as2(User.getById("user", true).impersonate2())) {
+            assertThat(customIcon.getVisibleStatus(0).getResult(), is(Result.FAILURE));
+            assertThat(customIcon.getVisibleStatus(0).getTotalCount(), is(2));
+        }
+
+        // the combined build status of all jobs if it is shared
+        customIcon.setSharedStatus(true);
+        try (ACLContext ignored = ACL.as2(User.getById("other", true).impersonate2())) {
+            assertThat(customIcon.getVisibleStatus(0).getTotalCount(), is(2));
+        }
+        customIcon.setSharedStatus(false);
+        try (ACLContext ignored = ACL.as2(User.getById("other", true).impersonate2())) {
+            assertThat(customIcon.getVisibleStatus(0).getTotalCount(), is(1));
+        }
+    }
+
     /**
      * Test behavior on a regular {@link Folder}.
      *
@@ -322,6 +747,155 @@ class BuildStatusFolderIconTest {
         }
     }
 
+    /**
+     * Test behavior of the cached status when jobs are changed or deleted.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void cachedBuildStatusIcon() throws Exception {
+        BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(null);
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.setIcon(customIcon);
+        FolderIcon icon = project.getIcon();
+
+        assertThat(icon, instanceOf(BuildStatusFolderIcon.class));
+
+        try (MockedStatic<Stapler> stapler = mockStatic(Stapler.class)) {
+            mockStaplerRequest(stapler);
+
+            // Failure
+            FreeStyleProject failure = project.createProject(FreeStyleProject.class, "Failure");
+            failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+            r.buildAndAssertStatus(Result.FAILURE, failure);
+
+            validateSymbol(icon, BallColor.RED.getImage(), BallColor.RED.getIconName());
+            assertThat(icon.getDescription(), containsString(Messages.BuildStatusFolderIcon_failing(1, 1)));
+
+            // Disabled
+            failure.makeDisabled(true);
+
+            validateSymbol(icon, BallColor.DISABLED.getImage(), BallColor.DISABLED.getIconName());
+
+            // Enabled
+            failure.makeDisabled(false);
+
+            validateSymbol(icon, BallColor.RED.getImage(), BallColor.RED.getIconName());
+
+            // Deleted
+            failure.delete();
+
+            validateSymbol(icon, BallColor.NOTBUILT.getImage(), BallColor.NOTBUILT.getIconName());
+        }
+    }
+
+    /**
+     * Test behavior of a computation exceeding its time budget.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void staleBuildStatusIcon() throws Exception {
+        BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(null);
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.setIcon(customIcon);
+
+        BlockingProject slow = project.createProject(BlockingProject.class, "Slow");
+        r.buildAndAssertSuccess(slow);
+
+        assertThat(customIcon.getStatus(100).isStale(), is(false));
+
+        BlockingProject.latch = new CountDownLatch(1);
+        try {
+            customIcon.invalidate();
+
+            BuildStatus stale = customIcon.getStatus(100);
+            assertThat(stale.isStale(), is(true));
+            assertThat(stale.getResult(), is(Result.SUCCESS));
+            assertThat(customIcon.getDescription(), endsWith(Messages.BuildStatusFolderIcon_stale() + ")"));
+        } finally {
+            BlockingProject.latch.countDown();
+            BlockingProject.latch = null;
+        }
+
+        BuildStatus current = customIcon.getStatus(0);
+        assertThat(current.isStale(), is(false));
+        assertThat(current.getResult(), is(Result.SUCCESS));
+    }
+
+    /**
+     * Test behavior of nested folders using a {@link BuildStatusFolderIcon}.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void nestedBuildStatusIcon() throws Exception {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.setIcon(new BuildStatusFolderIcon(null));
+        FolderIcon icon = project.getIcon();
+
+        Folder subfolder = project.createProject(Folder.class, "subfolder");
+        subfolder.setIcon(new BuildStatusFolderIcon(null));
+        FolderIcon subIcon = subfolder.getIcon();
+
+        try (MockedStatic<Stapler> stapler = mockStatic(Stapler.class)) {
+            mockStaplerRequest(stapler);
+
+            // Success
+            FreeStyleProject success = project.createProject(FreeStyleProject.class, "Success");
+            r.buildAndAssertSuccess(success);
+
+            // Nested Success
+            FreeStyleProject nested = subfolder.createProject(FreeStyleProject.class, "Nested");
+            r.buildAndAssertSuccess(nested);
+
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+            validateSymbol(subIcon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+
+            // Nested Failure
+            nested.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+            r.buildAndAssertStatus(Result.FAILURE, nested);
+
+            validateSymbol(icon, BallColor.RED.getImage(), BallColor.RED.getIconName());
+            validateSymbol(subIcon, BallColor.RED.getImage(), BallColor.RED.getIconName());
+
+            // Nested Disabled
+            nested.makeDisabled(true);
+
+            validateSymbol(icon, BallColor.BLUE.getImage(), BallColor.BLUE.getIconName());
+            validateSymbol(subIcon, BallColor.DISABLED.getImage(), BallColor.DISABLED.getIconName());
+        }
+    }
+
+    /**
+     * Test behavior of the status being computed only once per request.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void requestScopedBuildStatusIcon() throws Exception {
+        BuildStatusFolderIcon customIcon = new BuildStatusFolderIcon(null);
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.setIcon(customIcon);
+        FolderIcon icon = project.getIcon();
+
+        try (MockedStatic<Stapler> stapler = mockStatic(Stapler.class)) {
+            StaplerRequest2 req = mockStaplerRequest(stapler);
+            Map<String, Object> attributes = new HashMap<>();
+            when(req.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArgument(0)));
+            doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+                    .when(req)
+                    .setAttribute(anyString(), any());
+
+            long avoided = BuildStatusEngine.getAvoidedRecomputations();
+
+            validateSymbol(icon, BallColor.NOTBUILT.getImage(), BallColor.NOTBUILT.getIconName());
+            assertThat(icon.getDescription(), startsWith(project.getPronoun()));
+
+            assertThat(BuildStatusEngine.getAvoidedRecomputations() - avoided, is(2L));
+        }
+    }
+
     /**
      * Test behavior of possible {@link Result}s on no builds.
      *
@@ -345,4 +919,42 @@ class BuildStatusFolderIconTest {
             validateSymbol(icon, BallColor.NOTBUILT.getImage(), BallColor.NOTBUILT.getIconName());
         }
     }
+
+    /**
+     * A project blocking the computation of the combined build status while a latch is set.
+     */
+    public static class BlockingProject extends FreeStyleProject {
+
+        static volatile CountDownLatch latch;
+
+        public BlockingProject(ItemGroup<?> parent, String name) {
+            super(parent, name);
+        }
+
+        @Override
+        public boolean isBuildable() {
+            CountDownLatch current = latch;
+            if (current != null) {
+                try {
+                    current.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.isBuildable();
+        }
+
+        @TestExtension("staleBuildStatusIcon")
+        public static class DescriptorImpl extends FreeStyleProject.DescriptorImpl {
+
+            public DescriptorImpl() {
+                super(BlockingProject.class);
+            }
+
+            @Override
+            public TopLevelItem newInstance(ItemGroup parent, String name) {
+                return new BlockingProject(parent, name);
+            }
+        }
+    }
 }
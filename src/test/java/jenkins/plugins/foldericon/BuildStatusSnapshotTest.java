@@ -0,0 +1,73 @@
+package jenkins.plugins.foldericon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import java.util.Collections;
+import jenkins.plugins.foldericon.utils.ResultBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.jvnet.hudson.test.junit.jupiter.JenkinsSessionExtension;
+
+/**
+ * Build Status Snapshot Tests
+ */
+class BuildStatusSnapshotTest {
+
+    @RegisterExtension
+    private final JenkinsSessionExtension sessions = new JenkinsSessionExtension();
+
+    /**
+     * Test behavior of persisted and restored folder statuses.
+     *
+     * @throws Throwable in case anything goes wrong
+     */
+    @Test
+    void persistence() throws Throwable {
+        sessions.then(r -> {
+            Folder folder = r.jenkins.createProject(Folder.class, "folder");
+            BuildStatusFolderIcon icon = new HealthFolderIcon(null);
+            folder.setIcon(icon);
+
+            FreeStyleProject project = folder.createProject(FreeStyleProject.class, "failure");
+            project.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+            r.buildAndAssertStatus(Result.FAILURE, project);
+            project.getBuildersList().clear();
+
+            assertThat(icon.getStatus().getResult(), is(Result.FAILURE));
+
+            BuildStatusSnapshot.get().save();
+            BuildStatusSnapshot loaded = new BuildStatusSnapshot();
+            assertThat(loaded.restore("folder", icon.getFingerprint() + 1), nullValue());
+
+            loaded = new BuildStatusSnapshot();
+            BuildStatus restored = loaded.restore("folder", icon.getFingerprint());
+            assertThat(restored.getResult(), is(Result.FAILURE));
+            assertThat(restored.isRunning(), is(false));
+            assertThat(restored.isBuildable(), is(true));
+            assertThat(restored.isEmpty(), is(false));
+            assertThat(restored.getHealthCount(), is(1));
+            assertThat(restored.getAverageHealth(), is(0));
+            assertThat(restored.getOldestCompleted(), is(icon.getStatus().getOldestCompleted()));
+            assertThat(loaded.restore("folder", icon.getFingerprint()), nullValue());
+        });
+
+        sessions.then(r -> {
+            Folder folder = r.jenkins.getItemByFullName("folder", Folder.class);
+            BuildStatusFolderIcon icon = (BuildStatusFolderIcon) folder.getIcon();
+
+            // only a restored status is available without computing it
+            assertThat(icon.getCachedStatus(), notNullValue());
+            assertThat(icon.getCachedStatus().getResult(), is(Result.FAILURE));
+
+            BuildStatusSnapshot.get().reconcile();
+            assertThat(BuildStatusSnapshot.get().size(), is(0));
+            assertThat(icon.getCachedStatus().getResult(), is(Result.FAILURE));
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package jenkins.plugins.foldericon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import hudson.model.BallColor;
+import hudson.model.Result;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Build Status Tests
+ */
+class BuildStatusTest {
+
+    /**
+     * Test behavior of a folder without any jobs.
+     */
+    @Test
+    void empty() {
+        assertThat(BuildStatus.EMPTY.getResult(), nullValue());
+        assertThat(BuildStatus.EMPTY.isEmpty(), is(true));
+        assertThat(BuildStatus.EMPTY.isBuildable(), is(false));
+        assertThat(BuildStatus.EMPTY.getBallColor(), is(BallColor.NOTBUILT));
+    }
+
+    /**
+     * Test behavior of the counters when statuses are combined.
+     */
+    @Test
+    void combine() {
+        int[] results = BuildStatus.newCounters();
+        results[Result.SUCCESS.ordinal] = 2;
+        BuildStatus first = new BuildStatus(results, 1, 1, 4);
+
+        results = BuildStatus.newCounters();
+        results[Result.UNSTABLE.ordinal] = 1;
+        BuildStatus second = new BuildStatus(results, 0, 0, 1);
+
+        BuildStatus combined = first.combine(second);
+        assertThat(combined.getResult(), is(Result.UNSTABLE));
+        assertThat(combined.getCount(Result.SUCCESS), is(2));
+        assertThat(combined.getCount(Result.UNSTABLE), is(1));
+        assertThat(combined.getRunningCount(), is(1));
+        assertThat(combined.getDisabledCount(), is(1));
+        assertThat(combined.getTotalCount(), is(5));
+        assertThat(combined.getBallColor(), is(BallColor.YELLOW_ANIME));
+
+        results = BuildStatus.newCounters();
+        BuildStatus disabled = new BuildStatus(results, 0, 2, 2);
+        assertThat(disabled.isBuildable(), is(false));
+        assertThat(disabled.getBallColor(), is(BallColor.DISABLED));
+    }
+
+    /**
+     * Test behavior of the counters when the status of a single job changes.
+     */
+    @Test
+    void withChanged() {
+        int[] results = BuildStatus.newCounters();
+        results[Result.FAILURE.ordinal] = 1;
+        results[Result.SUCCESS.ordinal] = 1;
+        BuildStatus status = new BuildStatus(results, 0, 0, 3);
+        assertThat(status.getResult(), is(Result.FAILURE));
+
+        JobStatus failed = new JobStatus(1, Result.FAILURE, false);
+        JobStatus building = failed.withBuilding(true);
+        status = status.withChanged(failed, building);
+        assertThat(status.getRunningCount(), is(1));
+        assertThat(status.getBallColor(), is(BallColor.RED_ANIME));
+
+        JobStatus fixed = new JobStatus(2, Result.SUCCESS, false);
+        status = status.withChanged(building, fixed);
+        assertThat(status.getRunningCount(), is(0));
+        assertThat(status.getCount(Result.FAILURE), is(0));
+        assertThat(status.getCount(Result.SUCCESS), is(2));
+        assertThat(status.getResult(), is(Result.SUCCESS));
+
+        status = status.withChanged(fixed, fixed.withQueued(true));
+        assertThat(status.getQueuedCount(), is(1));
+        assertThat(status.getCount(Result.SUCCESS), is(2));
+        status = status.withChanged(fixed.withQueued(true), fixed);
+        assertThat(status.isQueued(), is(false));
+
+        status = status.withChanged(JobStatus.NONE, new JobStatus(1, Result.ABORTED, false));
+        assertThat(status.getResult(), is(Result.ABORTED));
+        assertThat(results[Result.FAILURE.ordinal], is(1));
+    }
+}
@@ -0,0 +1,132 @@
+package jenkins.plugins.foldericon;
+
+import static jenkins.plugins.foldericon.utils.TestUtils.mockStaplerRequest;
+import static jenkins.plugins.foldericon.utils.TestUtils.validateIcon;
+import static jenkins.plugins.foldericon.utils.TestUtils.validateSymbol;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mockStatic;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import com.cloudbees.hudson.plugins.folder.FolderIcon;
+import hudson.model.BallColor;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import java.util.Collections;
+import jenkins.plugins.foldericon.HealthFolderIcon.DescriptorImpl;
+import jenkins.plugins.foldericon.utils.ResultBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import org.kohsuke.stapler.Stapler;
+import org.mockito.MockedStatic;
+
+/**
+ * Health Folder Icon Tests
+ */
+@WithJenkins
+class HealthFolderIconTest {
+
+    private JenkinsRule r;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        r = rule;
+    }
+
+    /**
+     * Test behavior on a regular {@link Folder}.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void folder() throws Exception {
+        HealthFolderIcon customIcon = new HealthFolderIcon(null);
+        assertThat(customIcon.getDescription(), startsWith(Messages.Folder_description()));
+
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.setIcon(customIcon);
+        FolderIcon icon = project.getIcon();
+
+        assertThat(icon, instanceOf(HealthFolderIcon.class));
+        assertThat(icon.getDescription(), startsWith(project.getPronoun()));
+        assertThat(icon.getDescription(), containsString(Messages.HealthFolderIcon_unknown()));
+    }
+
+    /**
+     * Test behavior of {@link DescriptorImpl}.
+     */
+    @Test
+    void descriptor() {
+        HealthFolderIcon customIcon = new HealthFolderIcon(null);
+        DescriptorImpl descriptor = customIcon.getDescriptor();
+        assertThat(descriptor.getDisplayName(), is(Messages.HealthFolderIcon_description()));
+        assertThat(descriptor.isApplicable(null), is(true));
+    }
+
+    /**
+     * Test behavior of the worst and average health of finished builds.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void healthIcon() throws Exception {
+        HealthFolderIcon customIcon = new HealthFolderIcon(null);
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.setIcon(customIcon);
+
+        try (MockedStatic<Stapler> stapler = mockStatic(Stapler.class)) {
+            mockStaplerRequest(stapler);
+
+            // without any health report the combined build status is shown
+            validateSymbol(customIcon, BallColor.NOTBUILT.getImage(), BallColor.NOTBUILT.getIconName());
+
+            FreeStyleProject success = project.createProject(FreeStyleProject.class, "success");
+            r.buildAndAssertSuccess(success);
+
+            assertThat(customIcon.getStatus().getHealthCount(), is(1));
+            validateIcon(customIcon, "health-80plus.png", "symbol-weather-icon-health-80plus");
+            assertThat(customIcon.getDescription(), containsString(Messages.HealthFolderIcon_health(100)));
+
+            FreeStyleProject failure = project.createProject(FreeStyleProject.class, "failure");
+            failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+            r.buildAndAssertStatus(Result.FAILURE, failure);
+
+            assertThat(customIcon.getStatus().getHealthCount(), is(2));
+            assertThat(customIcon.getStatus().getAverageHealth(), is(50));
+            validateIcon(customIcon, "health-00to19.png", "symbol-weather-icon-health-00to19");
+
+            customIcon.setAverage(true);
+            validateIcon(customIcon, "health-40to59.png", "symbol-weather-icon-health-40to59");
+            assertThat(customIcon.getDescription(), containsString(Messages.HealthFolderIcon_health(50)));
+        }
+    }
+
+    /**
+     * Test that health scores are only computed for folders showing them.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void healthOnlyForHealthIcons() throws Exception {
+        HealthFolderIcon customIcon = new HealthFolderIcon(null);
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.setIcon(customIcon);
+
+        BuildStatusFolderIcon subIcon = new BuildStatusFolderIcon(null);
+        Folder subfolder = project.createProject(Folder.class, "subfolder");
+        subfolder.setIcon(subIcon);
+
+        FreeStyleProject success = subfolder.createProject(FreeStyleProject.class, "success");
+        r.buildAndAssertSuccess(success);
+
+        assertThat(subIcon.getStatus().getHealthCount(), is(0));
+        // the status of the subfolder does not include the health scores, so it is not reused
+        assertThat(customIcon.getStatus().getHealthCount(), is(1));
+        assertThat(JobStatusStore.get().get(success).getHealth(), is(100));
+    }
+}
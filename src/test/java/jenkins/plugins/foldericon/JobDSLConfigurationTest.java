@@ -51,6 +51,18 @@ class JobDSLConfigurationTest {
         assertThat(customIcon.getIconClassName(), is("symbol-status-" + BallColor.NOTBUILT.getIconName()));
     }
 
+    /**
+     * Test behavior for health.groovy.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void healthFolderIcon() throws Exception {
+        HealthFolderIcon customIcon = createFolder(r, "health.groovy", HealthFolderIcon.class);
+        assertThat(customIcon.getJobs(), contains("main", "dev"));
+        assertThat(customIcon.isAverage(), is(true));
+    }
+
     /**
      * Test behavior for build-status.groovy.
      *
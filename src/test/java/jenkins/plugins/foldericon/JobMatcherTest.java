@@ -0,0 +1,110 @@
+package jenkins.plugins.foldericon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Job Matcher Tests
+ */
+class JobMatcherTest {
+
+    /**
+     * Test behavior without any selection.
+     */
+    @Test
+    void empty() {
+        JobMatcher matcher = new JobMatcher(null, null, " ");
+        assertThat(matcher.isEmpty(), is(true));
+        assertThat(matcher.matches("main"), is(true));
+    }
+
+    /**
+     * Test behavior of explicitly selected jobs.
+     */
+    @Test
+    void names() {
+        JobMatcher matcher = new JobMatcher(Set.of("main", "folder/job"), null, null);
+        assertThat(matcher.isEmpty(), is(false));
+        assertThat(matcher.matches("main"), is(true));
+        assertThat(matcher.matches("folder/job"), is(true));
+        assertThat(matcher.matches("develop"), is(false));
+    }
+
+    /**
+     * Test behavior of glob patterns.
+     */
+    @Test
+    void globs() {
+        JobMatcher matcher = new JobMatcher(Set.of(), "main\nrelease/*\n\nv?.(x)", "release/*-rc");
+        assertThat(matcher.matches("main"), is(true));
+        assertThat(matcher.matches("release/1.0"), is(true));
+        assertThat(matcher.matches("release/1.0-rc"), is(false));
+        assertThat(matcher.matches("v1.(x)"), is(true));
+        assertThat(matcher.matches("v12.(x)"), is(false));
+        assertThat(matcher.matches("feature/release/1.0"), is(false));
+    }
+
+    /**
+     * Test behavior of patterns matching the relative display names of jobs, while selected jobs match their relative
+     * names.
+     */
+    @Test
+    void displayNames() {
+        JobMatcher matcher = new JobMatcher(Set.of("sub/main"), "Sub » release/*", null);
+        assertThat(matcher.matches("sub/main", "Sub » main"), is(true));
+        assertThat(matcher.matches("sub/release%2F1.0", "Sub » release/1.0"), is(true));
+        assertThat(matcher.matches("sub/release%2F1.0", "sub/release%2F1.0"), is(false));
+        assertThat(matcher.matches("Sub » main", "Sub » main"), is(false));
+    }
+
+    /**
+     * Test behavior of regular expression patterns.
+     */
+    @Test
+    void regex() {
+        JobMatcher matcher = new JobMatcher(Set.of("develop"), "regex:(main|release/\\d+)", null);
+        assertThat(matcher.matches("main"), is(true));
+        assertThat(matcher.matches("release/12"), is(true));
+        assertThat(matcher.matches("release/x"), is(false));
+        assertThat(matcher.matches("develop"), is(true));
+    }
+
+    /**
+     * Test behavior of exclude patterns without include patterns.
+     */
+    @Test
+    void excludes() {
+        JobMatcher matcher = new JobMatcher(null, null, "feature/*");
+        assertThat(matcher.isEmpty(), is(false));
+        assertThat(matcher.matches("main"), is(true));
+        assertThat(matcher.matches("feature/x"), is(false));
+    }
+
+    /**
+     * Test behavior of invalid patterns.
+     */
+    @Test
+    void invalid() {
+        assertThrows(PatternSyntaxException.class, () -> JobMatcher.compile("regex:("));
+
+        JobMatcher matcher = new JobMatcher(null, "regex:(", null);
+        assertThat(matcher.isEmpty(), is(true));
+    }
+
+    /**
+     * Test behavior of {@link JobMatcher#split(String)}.
+     */
+    @Test
+    void split() {
+        assertThat(JobMatcher.split(null), empty());
+        assertThat(JobMatcher.split(" \n "), empty());
+        assertThat(JobMatcher.split(" main \r\n\nrelease/* "), contains("main", "release/*"));
+    }
+}
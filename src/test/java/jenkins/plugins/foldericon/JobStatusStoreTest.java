@@ -0,0 +1,196 @@
+package jenkins.plugins.foldericon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Items;
+import hudson.model.Queue;
+import hudson.model.Result;
+import java.util.Collections;
+import jenkins.plugins.foldericon.utils.DelayBuilder;
+import jenkins.plugins.foldericon.utils.ResultBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Job Status Store Tests
+ */
+@WithJenkins
+class JobStatusStoreTest {
+
+    private JenkinsRule r;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        r = rule;
+    }
+
+    /**
+     * Test behavior of statuses maintained from build events.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void buildEvents() throws Exception {
+        JobStatusStore store = JobStatusStore.get();
+        FreeStyleProject project = r.createFreeStyleProject("job");
+
+        JobStatus status = store.get(project);
+        assertThat(status.getNumber(), is(0));
+        assertThat(status.getResult(), nullValue());
+        assertThat(status.isBuilding(), is(false));
+
+        project.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.UNSTABLE)));
+        r.buildAndAssertStatus(Result.UNSTABLE, project);
+
+        status = store.get(project);
+        assertThat(status.getNumber(), is(1));
+        assertThat(status.getResult(), is(Result.UNSTABLE));
+        assertThat(status.isBuilding(), is(false));
+
+        DelayBuilder builder = new DelayBuilder();
+        project.getBuildersList().replaceBy(Collections.singleton(builder));
+        FreeStyleBuild build = project.scheduleBuild2(0).getStartCondition().get();
+
+        status = store.get(project);
+        assertThat(status.getNumber(), is(1));
+        assertThat(status.getResult(), is(Result.UNSTABLE));
+        assertThat(status.isBuilding(), is(true));
+
+        builder.release();
+        r.assertBuildStatusSuccess(r.waitForCompletion(build));
+
+        status = store.get(project);
+        assertThat(status.getNumber(), is(2));
+        assertThat(status.getResult(), is(Result.SUCCESS));
+        assertThat(status.isBuilding(), is(false));
+
+        build.delete();
+
+        status = store.get(project);
+        assertThat(status.getNumber(), is(1));
+        assertThat(status.getResult(), is(Result.UNSTABLE));
+    }
+
+    /**
+     * Test behavior of statuses maintained from queue events.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void queueEvents() throws Exception {
+        JobStatusStore store = JobStatusStore.get();
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        BuildStatusFolderIcon icon = new BuildStatusFolderIcon(null);
+        folder.setIcon(icon);
+
+        FreeStyleProject project = folder.createProject(FreeStyleProject.class, "job");
+        FreeStyleProject other = folder.createProject(FreeStyleProject.class, "other");
+        r.buildAndAssertSuccess(project);
+        assertThat(store.get(project).isQueued(), is(false));
+        assertThat(icon.getStatus().isQueued(), is(false));
+
+        other.scheduleBuild2(3600);
+        project.scheduleBuild2(3600);
+        assertThat(store.get(project).isQueued(), is(true));
+        assertThat(store.get(other).isQueued(), is(true));
+        assertThat(icon.getStatus().getQueuedCount(), is(2));
+        assertThat(icon.getDescription(), containsString(Messages.BuildStatusFolderIcon_queued(2)));
+
+        Queue.getInstance().cancel(project);
+        Queue.getInstance().cancel(other);
+        assertThat(store.get(project).isQueued(), is(false));
+        assertThat(store.get(other).isQueued(), is(false));
+        assertThat(icon.getStatus().isQueued(), is(false));
+        assertThat(store.get(project).getResult(), is(Result.SUCCESS));
+    }
+
+    /**
+     * Test behavior of statuses on item events.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void itemEvents() throws Exception {
+        JobStatusStore store = JobStatusStore.get();
+        Folder folder = r.jenkins.createProject(Folder.class, "folder");
+        Folder other = r.jenkins.createProject(Folder.class, "other");
+        FreeStyleProject project = folder.createProject(FreeStyleProject.class, "job");
+        r.buildAndAssertSuccess(project);
+
+        assertThat(store.getIfPresent("folder/job"), notNullValue());
+
+        Items.move(project, other);
+        assertThat(store.getIfPresent("folder/job"), nullValue());
+        assertThat(store.getIfPresent("other/job").getResult(), is(Result.SUCCESS));
+
+        other.delete();
+        assertThat(store.getIfPresent("other/job"), nullValue());
+    }
+
+    /**
+     * Test behavior of persisted statuses.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void persistence() throws Exception {
+        JobStatusStore store = JobStatusStore.get();
+        FreeStyleProject success = r.createFreeStyleProject("success");
+        r.buildAndAssertSuccess(success);
+
+        FreeStyleProject failure = r.createFreeStyleProject("failure");
+        failure.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, failure);
+
+        FreeStyleProject none = r.createFreeStyleProject("none");
+        assertThat(store.get(none).getResult(), nullValue());
+
+        store.save();
+
+        JobStatusStore loaded = new JobStatusStore();
+        assertThat(loaded.getIfPresent("success").getResult(), is(Result.SUCCESS));
+        assertThat(loaded.getIfPresent("success").getNumber(), is(1));
+        assertThat(
+                loaded.getIfPresent("success").getCompleted(),
+                is(store.get(success).getCompleted()));
+        assertThat(loaded.getIfPresent("failure").getResult(), is(Result.FAILURE));
+        assertThat(loaded.getIfPresent("none").getResult(), nullValue());
+        assertThat(loaded.getIfPresent("none").getNumber(), is(0));
+    }
+
+    /**
+     * Test behavior of persisted statuses of jobs built after they have been persisted, e.g. because the controller
+     * crashed before saving them again.
+     *
+     * @throws Exception in case anything goes wrong
+     */
+    @Test
+    void persistenceOutdated() throws Exception {
+        JobStatusStore store = JobStatusStore.get();
+        FreeStyleProject project = r.createFreeStyleProject("job");
+        r.buildAndAssertSuccess(project);
+        FreeStyleProject other = r.createFreeStyleProject("other");
+        r.buildAndAssertSuccess(other);
+        store.save();
+
+        project.getBuildersList().replaceBy(Collections.singleton(new ResultBuilder(Result.FAILURE)));
+        r.buildAndAssertStatus(Result.FAILURE, project);
+
+        JobStatusStore loaded = new JobStatusStore();
+        assertThat(loaded.getIfPresent("job").getResult(), is(Result.SUCCESS));
+        assertThat(loaded.get(project).getResult(), is(Result.FAILURE));
+        assertThat(loaded.get(project).getNumber(), is(2));
+        assertThat(loaded.get(other), sameInstance(loaded.getIfPresent("other")));
+        assertThat(loaded.get(other).getNumber(), is(1));
+    }
+}
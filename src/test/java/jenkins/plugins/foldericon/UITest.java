@@ -2,6 +2,8 @@ package jenkins.plugins.foldericon;
 
 import static jenkins.plugins.foldericon.utils.TestUtils.createCustomIconFile;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.htmlunit.WebAssert.assertTextPresent;
@@ -10,7 +12,10 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import com.cloudbees.hudson.plugins.folder.Folder;
 import hudson.FilePath;
+import hudson.model.FreeStyleProject;
 import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.apache.commons.io.FileUtils;
 import org.htmlunit.html.DomElement;
@@ -152,4 +157,32 @@ class UITest {
             assertThat(src, is("/jenkins/plugin/custom-folder-icon/icons/default.svg"));
         }
     }
+
+    /**
+     * Test the behavior of the job picker of the BuildStatusFolderIcon.
+     *
+     * @throws Throwable in case anything goes wrong
+     */
+    @Test
+    void buildStatusJobPicker() throws Throwable {
+        Folder project = r.jenkins.createProject(Folder.class, "folder");
+        project.createProject(FreeStyleProject.class, "selected");
+        project.createProject(FreeStyleProject.class, "other");
+        project.setIcon(new BuildStatusFolderIcon(Set.of("selected")));
+
+        try (JenkinsRule.WebClient webClient = r.createWebClient()) {
+            HtmlPage configure = webClient.getPage(project, "configure");
+            webClient.waitForBackgroundJavaScript(2000);
+
+            List<String> listed = configure.querySelectorAll(".build-status-job input").stream()
+                    .map(checkbox -> ((DomElement) checkbox).getAttribute("json"))
+                    .toList();
+            assertThat(listed, containsInAnyOrder("selected", "other"));
+
+            r.submit(configure.getFormByName("config"));
+        }
+
+        BuildStatusFolderIcon icon = (BuildStatusFolderIcon) project.getIcon();
+        assertThat(icon.getJobs(), contains("selected"));
+    }
 }
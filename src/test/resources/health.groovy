@@ -0,0 +1,8 @@
+folder('health') {
+    icon {
+        healthFolderIcon {
+            jobs(['main', 'dev'] as Set)
+            average(true)
+        }
+    }
+}